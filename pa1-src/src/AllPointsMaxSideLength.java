@@ -0,0 +1,274 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * For every point, computes the maximum side length of the square that can be drawn around it, such that it doesn't
+ * intersect the square of the same side around its own nearest neighbor, which is the Chebyshev (L-infinity)
+ * distance to its nearest neighbor. The minimum of these sides is the answer of MaxSideLength.
+ * The nearest neighbors of all the points are found in O(n log n):
+ *  - Rotating the plane by 45 degrees, u = x + y and v = x - y, turns the Chebyshev distance into half of the
+ *    Manhattan distance, max(|dx|, |dy|) = (|du| + |dv|) / 2.
+ *  - Around each point, the plane is split into 4 quadrants {du > 0, dv >= 0} and its 3 rotations by 90 degrees.
+ *    Within the first quadrant, the Manhattan distance is (u' + v') - (u + v), so the nearest neighbor of a point
+ *    there is the point with the minimum u' + v' among the points with u' > u and v' >= v.
+ *  - Each quadrant is swept in decreasing order of its u, while a Fenwick tree over the ranks of its v keeps the
+ *    minimum u' + v' of the points swept so far, for every suffix of the ranks.
+ * The 4 sweeps are independent, and run in parallel when more than 1 thread is used.
+ */
+public class AllPointsMaxSideLength {
+    /** The number of bits used by a point index in a sort key, the rest of the key holds a rotated coordinate. */
+    private static final int INDEX_BITS = 31;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    private final int threads;
+
+    /**
+     * Main method that demonstrates the usage of this class.
+     * @param args Command-line arguments, the input file path, followed by the output file path, optionally
+     *             followed by the number of threads to be used.
+     */
+    public static void main(String[] args) {
+        if(args.length < 2)
+            throw new RuntimeException("Input and output files were not passed as arguments.");
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        new AllPointsMaxSideLength(threads).solve(args[0], args[1]);
+    }
+
+    /**
+     * Creates a solver that runs on a single thread.
+     */
+    public AllPointsMaxSideLength(){
+        this(1);
+    }
+
+    /**
+     * @param threads The number of threads, when greater than 1 the sorts and the 4 sweeps run on a ForkJoinPool.
+     */
+    public AllPointsMaxSideLength(int threads){
+        if(threads < 1)
+            throw new RuntimeException("The number of threads must be positive.");
+        this.threads = threads;
+    }
+
+    /**
+     * Solves the problem for every point of the input file, and writes the side of each point to the output file,
+     * one per line, in the order of the input file.
+     * The sides are not streamed to the file while they are computed: any of the 4 sweeps (each in the order of a
+     * rotated coordinate, not of the file) may still lower the side of any point, so no side is final before the
+     * last sweep ends, and the sides are written afterwards, through a buffered writer.
+     * @param inputFile The path to the input file containing the point coordinates (text or binary format).
+     * @param outputFile The path to the output file.
+     */
+    public void solve(String inputFile, String outputFile){
+        long[] sides = solve(inputFile);
+        try (Writer output = Files.newBufferedWriter(Paths.get(outputFile))) {
+            for(long side : sides) {
+                output.write(Long.toString(side));
+                output.write('\n');
+            }
+        } catch (IOException E){
+            throw new RuntimeException("Output file couldn't be written.", E);
+        }
+    }
+
+    /**
+     * Solves the problem for every point of the input file.
+     * @param inputFile The path to the input file containing the point coordinates (text or binary format).
+     * @return The maximum side length of the square around each point, in the order of the input file.
+     */
+    public long[] solve(String inputFile){
+        return solve(MaxSideLength.scanInput(inputFile));
+    }
+
+    /**
+     * Solves the problem for every point.
+     * @param points The points, they are not modified.
+     * @return The maximum side length of the square around each point, in the order of the points.
+     * @throws RuntimeException if there are fewer than 2 points, or if there are duplicate points.
+     */
+    public long[] solve(PointSet points){
+        if(points.size() < 2)
+            throw new RuntimeException("2 Points are required at least.");
+        if(threads == 1)
+            return solveOnCurrentThread(points);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(() -> solveOnCurrentThread(points)).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Solves the problem for every point, when called from a ForkJoinPool task the parallel work is done by that pool.
+     */
+    private long[] solveOnCurrentThread(PointSet points){
+        boolean parallel = threads > 1;
+        Rotation rotation = new Rotation(points, parallel);
+        if(!parallel) {
+            // the sweeps run one after the other, so they lower the sides of a single array
+            long[] sides = newSides(points.size());
+            for(int quadrant = 0 ; quadrant < 4 ; quadrant++)
+                sweep(rotation, quadrant, sides);
+            return sides;
+        }
+
+        long[][] sides = new long[4][];
+        IntStream.range(0, 4).parallel().forEach(quadrant -> {
+            sides[quadrant] = newSides(points.size());
+            sweep(rotation, quadrant, sides[quadrant]);
+        });
+        long[] result = sides[0];
+        for(int i = 0 ; i < result.length ; i++)
+            result[i] = Math.min(Math.min(result[i], sides[1][i]), Math.min(sides[2][i], sides[3][i]));
+        return result;
+    }
+
+    private static long[] newSides(int n){
+        long[] sides = new long[n];
+        Arrays.fill(sides, Long.MAX_VALUE);
+        return sides;
+    }
+
+    /**
+     * Finds, for every point, the distance to its nearest neighbor within one of the 4 quadrants around it.
+     * The quadrant k is the first quadrant {du > 0, dv >= 0} rotated k times by 90 degrees, which is the same as
+     * rotating the points -90 degrees k times, (u, v) becomes (-v, u), and searching the first quadrant:
+     *  k = 0: (u, v),    k = 1: (-v, u),    k = 2: (-u, -v),    k = 3: (v, -u).
+     * @param rotation The rotated coordinates of the points, with their sorted orders and ranks.
+     * @param quadrant The quadrant to be searched, in [0, 3].
+     * @param sides The side of each point, lowered to the Chebyshev distance to its nearest neighbor in the quadrant
+     *              when it is smaller (an empty quadrant leaves it unchanged).
+     */
+    private void sweep(Rotation rotation, int quadrant, long[] sides){
+        // the points have to be swept in decreasing order of the rotated u, which is one of the 2 sorted orders
+        boolean alongU = quadrant % 2 == 0;
+        long[] order = alongU ? rotation.byU : rotation.byV;
+        boolean descending = quadrant == 0 || quadrant == 3;
+        // the rotated v is ranked by the other coordinate, its suffixes of ranks are prefixes of the tree
+        int[] ranks = alongU ? rotation.rankV : rotation.rankU;
+        int distinct = alongU ? rotation.distinctV : rotation.distinctU;
+        boolean reversedRanks = quadrant < 2;
+
+        int n = order.length;
+        long[] tree = new long[distinct + 1];           // Fenwick tree of prefix minimums, 1-based
+        Arrays.fill(tree, Long.MAX_VALUE);
+
+        for(int start = 0 ; start < n ; ) {
+            // the points with the same u are not in each other's quadrant (du > 0), so they are all queried first
+            long groupU = order[descending ? n - 1 - start : start] >> INDEX_BITS;
+            int end = start;
+            while(end < n && order[descending ? n - 1 - end : end] >> INDEX_BITS == groupU)
+                end++;
+
+            for(int pos = start ; pos < end ; pos++) {
+                int i = (int) (order[descending ? n - 1 - pos : pos] & INDEX_MASK);
+                int rank = reversedRanks ? distinct - 1 - ranks[i] : ranks[i];
+                long minSum = Long.MAX_VALUE;
+                for(int j = rank + 1 ; j > 0 ; j -= j & -j)
+                    minSum = Math.min(minSum, tree[j]);
+                if(minSum != Long.MAX_VALUE)
+                    sides[i] = Math.min(sides[i], (minSum - rotation.sum(quadrant, i)) / 2);
+            }
+            for(int pos = start ; pos < end ; pos++) {
+                int i = (int) (order[descending ? n - 1 - pos : pos] & INDEX_MASK);
+                int rank = reversedRanks ? distinct - 1 - ranks[i] : ranks[i];
+                long sum = rotation.sum(quadrant, i);
+                for(int j = rank + 1 ; j <= distinct ; j += j & -j)
+                    tree[j] = Math.min(tree[j], sum);
+            }
+            start = end;
+        }
+    }
+
+    /**
+     * The points rotated by 45 degrees, u = x + y + 1 and v = x - y, both in (-2^32, 2^32), so that they and their
+     * negations fit in the upper 33 bits of a sort key. The order of the points by each coordinate is computed once
+     * and shared by the 4 quadrants (a quadrant sweeps it forwards or backwards). Duplicate points are rejected
+     * from these orders too, as they share both their u and their v (see checkDuplicates()).
+     */
+    private static class Rotation {
+        final long[] us, vs;
+        final long[] byU, byV;          // sort keys (coordinate << INDEX_BITS | index), sorted
+        final int[] rankU, rankV;       // the rank of each point's coordinate among the distinct values
+        final int distinctU, distinctV;
+
+        Rotation(PointSet points, boolean parallel){
+            int n = points.size();
+            us = new long[n];
+            vs = new long[n];
+            for(int i = 0 ; i < n ; i++) {
+                us[i] = (long) points.x(i) + points.y(i) + 1;
+                vs[i] = (long) points.x(i) - points.y(i);
+            }
+            byU = sortedKeys(us, parallel);
+            byV = sortedKeys(vs, parallel);
+            rankU = new int[n];
+            rankV = new int[n];
+            distinctU = rank(byU, rankU);
+            distinctV = rank(byV, rankV);
+            checkDuplicates();
+        }
+
+        /**
+         * Duplicate points are in the same group of equal u of byU, with the same rank of v. Each group is scanned
+         * once, while the group that last claimed each rank of v is recorded, so this is O(n), without another sort
+         * of the points.
+         * @throws RuntimeException if there are duplicate points.
+         */
+        private void checkDuplicates(){
+            int[] groupOfRankV = new int[distinctV];
+            Arrays.fill(groupOfRankV, -1);
+            for(int pos = 0, group = 0 ; pos < byU.length ; pos++) {
+                if(pos > 0 && byU[pos] >> INDEX_BITS != byU[pos - 1] >> INDEX_BITS)
+                    group = pos;
+                int rank = rankV[(int) (byU[pos] & INDEX_MASK)];
+                if(groupOfRankV[rank] == group)
+                    throw new RuntimeException("Invalid Input, duplicates are not allowed");
+                groupOfRankV[rank] = group;
+            }
+        }
+
+        /**
+         * @return The sum of the rotated u and v of the point in the given quadrant (see sweep()).
+         */
+        long sum(int quadrant, int i){
+            switch (quadrant) {
+                case 0: return us[i] + vs[i];
+                case 1: return us[i] - vs[i];
+                case 2: return -us[i] - vs[i];
+                default: return vs[i] - us[i];
+            }
+        }
+
+        private static long[] sortedKeys(long[] coordinates, boolean parallel){
+            long[] keys = new long[coordinates.length];
+            for(int i = 0 ; i < keys.length ; i++)
+                keys[i] = coordinates[i] << INDEX_BITS | i;
+            if(parallel)
+                Arrays.parallelSort(keys);
+            else
+                Arrays.sort(keys);
+            return keys;
+        }
+
+        /**
+         * Ranks the coordinates, equal coordinates get the same rank.
+         * @return The number of distinct coordinates.
+         */
+        private static int rank(long[] sortedKeys, int[] ranks){
+            int rank = -1;
+            for(int pos = 0 ; pos < sortedKeys.length ; pos++) {
+                if(pos == 0 || sortedKeys[pos] >> INDEX_BITS != sortedKeys[pos - 1] >> INDEX_BITS)
+                    rank++;
+                ranks[(int) (sortedKeys[pos] & INDEX_MASK)] = rank;
+            }
+            return rank + 1;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+import java.util.Arrays;
+
+/**
+ * A primitive open-addressing hash table (linear probing), that maps the packed coordinates of a grid cell to an
+ * int value (typically the index of the first point in the cell), so that no key or value is ever boxed.
+ * Clearing the table is O(1): each slot is stamped with the generation in which it was written, and a slot whose
+ * stamp is not the current generation is considered empty.
+ */
+class CellTable {
+    /** The value returned by get() for keys that are not in the table. */
+    static final int MISSING = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int[] stamps;
+    private int generation = 1;
+    private int size;
+    private int mask;
+    private int shift;              // 64 - log2(capacity), to take the top bits of the hash
+
+    /**
+     * @param expectedSize The number of keys that the table is expected to hold, the table grows if it is exceeded.
+     */
+    CellTable(int expectedSize){
+        allocate(Math.max(16, Integer.highestOneBit(Math.max(1, expectedSize)) << 2));
+    }
+
+    /**
+     * Packs the coordinates of a grid cell into a single long key.
+     * @param cellX The x-coordinate of the cell.
+     * @param cellY The y-coordinate of the cell.
+     * @return The packed key.
+     */
+    static long cellKey(long cellX, long cellY){
+        return (cellX << 32) ^ (cellY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return The number of keys in the table.
+     */
+    int size(){
+        return size;
+    }
+
+    /**
+     * Removes all the keys from the table, in O(1).
+     */
+    void clear(){
+        size = 0;
+        if(++generation == 0) {         // the stamps wrapped around, so they have to be reset once
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * @param key The key to be looked up.
+     * @return The value mapped to the key, or MISSING if the key is not in the table.
+     */
+    int get(long key){
+        for(int slot = slotOf(key) ; stamps[slot] == generation ; slot = (slot + 1) & mask)
+            if(keys[slot] == key)
+                return values[slot];
+        return MISSING;
+    }
+
+    /**
+     * Maps the key to the given value, replacing the previous value if the key is already in the table.
+     * @param key The key.
+     * @param value The value, must not be MISSING.
+     */
+    void put(long key, int value){
+        int slot = slotOf(key);
+        for( ; stamps[slot] == generation ; slot = (slot + 1) & mask) {
+            if(keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        stamps[slot] = generation;
+        if(++size > (mask + 1) / 2)
+            grow();
+    }
+
+    /**
+     * Removes the key from the table (if present), shifting back the keys that follow it in the same probe run,
+     * so that no tombstones are needed.
+     * @param key The key to be removed.
+     */
+    void remove(long key){
+        int slot = slotOf(key);
+        while(stamps[slot] == generation && keys[slot] != key)
+            slot = (slot + 1) & mask;
+        if(stamps[slot] != generation)
+            return;
+        size--;
+
+        int hole = slot;
+        for(int next = (hole + 1) & mask ; stamps[next] == generation ; next = (next + 1) & mask) {
+            int home = slotOf(keys[next]);
+            // move the key back only if its home slot is not between the hole and its current slot (cyclically)
+            if(((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        stamps[hole] = 0;
+    }
+
+    private int slotOf(long key){
+        long hash = key * 0x9E3779B97F4A7C15L;         // Fibonacci hashing, the high bits are well mixed
+        return (int) (hash >>> shift);
+    }
+
+    private void allocate(int capacity){
+        keys = new long[capacity];
+        values = new int[capacity];
+        stamps = new int[capacity];
+        mask = capacity - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    private void grow(){
+        long[] oldKeys = keys;
+        int[] oldValues = values, oldStamps = stamps;
+        int oldGeneration = generation;
+        allocate(keys.length * 2);
+        generation = 1;
+        size = 0;
+        for(int i = 0 ; i < oldKeys.length ; i++)
+            if(oldStamps[i] == oldGeneration)
+                put(oldKeys[i], oldValues[i]);
+    }
+}
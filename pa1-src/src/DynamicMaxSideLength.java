@@ -0,0 +1,303 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Maintains the answer of MaxSideLength (the minimum Chebyshev distance between 2 points) for a set of points that
+ * changes over time, instead of solving the whole set again after every change.
+ * The points are kept in a hashed grid of cells of side CELL_SIDE_FACTOR * delta, where delta is the minimum
+ * distance when the grid was built, so any 2 points closer than a cell side lie in neighboring cells (among the 9
+ * cells around each other). Each point keeps a nearest neighbor candidate, the nearest point of its neighboring
+ * cells at the time it was last searched, and a heap of the candidate distances gives the minimum distance:
+ *  - insert(): searches the neighboring cells of the new point for its candidate, in O(1).
+ *  - remove(): searches again for the candidates of the neighboring points whose candidate was the removed point,
+ *    in O(1). Every other candidate is still a point of the set.
+ * Of every pair of neighboring points, the one that was searched last has a candidate at least as close as the
+ * other point (which was already in the set then), so the minimum candidate distance is the minimum distance, as
+ * long as it is smaller than a cell side. The grid is only rebuilt, in O(n), around the current delta (with cells
+ * of side CELL_SIDE_FACTOR * delta, which hold at most (CELL_SIDE_FACTOR + 1)^2 points each):
+ *  - when an insertion fills a cell beyond MAX_CELL_POINTS points. A close pair alone doesn't shrink the cells,
+ *    so a point that moves next to another one and back costs O(1).
+ *  - when a removal grows delta to a cell side or more, once, around the new minimum candidate distance (and once
+ *    more around the exact delta, if that grid has a cell beyond MAX_CELL_POINTS points).
+ * Removing a point of the closest pair therefore costs O(1), unless delta grows CELL_SIDE_FACTOR times, and no
+ * update solves the whole set again: only the first call to currentMaxSide() does (or the first one after the
+ * set had fewer than 2 points, or lost every pair of neighboring points), with MaxSideLength in O(n log n). So
+ * the amortized time per update is O(1) for random update orders, and O(n) at worst per update.
+ */
+public class DynamicMaxSideLength {
+    /** The side of the grid cells, as a multiple of delta when the grid is built. */
+    private static final long CELL_SIDE_FACTOR = 4;
+    /** The number of points in a cell beyond which the cells are shrunk, twice as many as a rebuilt grid can hold. */
+    private static final int MAX_CELL_POINTS = (int) (2 * (CELL_SIDE_FACTOR + 1) * (CELL_SIDE_FACTOR + 1));
+
+    private int[] xs = new int[16];
+    private int[] ys = new int[16];
+    private int[] nextInCell = new int[16];                 // the next point of the same cell, or CellTable.MISSING
+    private int[] candidate = new int[16];                  // the nearest neighbor candidate, or CellTable.MISSING
+    private long[] candidateDistance = new long[16];        // the distance to the candidate, or Long.MAX_VALUE
+    private int[] heap = new int[16];                       // a min-heap of the points by candidate distance
+    private int[] heapIndex = new int[16];                  // the position of each point in the heap
+    private int size;
+    private final CellTable indexOf = new CellTable(16);    // maps each point (packed by PointSet.packXY()) to its index
+    private final CellTable cells = new CellTable(16);      // maps each non-empty grid cell to the index of its first point
+    private final CellTable cellSizes = new CellTable(16);  // maps each non-empty grid cell to its number of points
+    private long cellSide;
+    private boolean upToDate;                               // whether the grid, the candidates and the heap are valid
+    int gridBuilds;                                         // the number of grid (re)builds, for the tests
+
+    /**
+     * Inserts a point into the set.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @throws RuntimeException if the point is already in the set.
+     */
+    public void insert(int x, int y){
+        long key = PointSet.packXY(x, y);
+        if(indexOf.get(key) != CellTable.MISSING)
+            throw new RuntimeException("Invalid Input, duplicates are not allowed");
+        if(size == xs.length)
+            grow();
+        int idx = size++;
+        xs[idx] = x;
+        ys[idx] = y;
+        indexOf.put(key, idx);
+        if(!upToDate)           // the grid will be rebuilt with the point in it
+            return;
+
+        int cellPoints = addToCell(idx);
+        searchCandidate(idx);
+        heap[idx] = idx;        // the heap holds every point, so it ends at index idx too
+        heapIndex[idx] = idx;
+        siftUp(idx);
+
+        if(cellPoints > MAX_CELL_POINTS)        // the cells became too large for the current delta
+            buildGrid(CELL_SIDE_FACTOR * candidateDistance[heap[0]]);
+    }
+
+    /**
+     * Removes a point from the set.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @throws RuntimeException if the point is not in the set.
+     */
+    public void remove(int x, int y){
+        long key = PointSet.packXY(x, y);
+        int idx = indexOf.get(key);
+        if(idx == CellTable.MISSING)
+            throw new RuntimeException("The point (" + x + ", " + y + ") is not in the set.");
+        indexOf.remove(key);
+
+        int last = size - 1;
+        if(upToDate) {
+            removeFromCell(idx);
+            // the points whose candidate was the removed point are in its neighboring cells, as their candidates are
+            candidate[idx] = CellTable.MISSING;
+            candidateDistance[idx] = Long.MIN_VALUE;            // moves it to the top of the heap, to be popped
+            siftUp(heapIndex[idx]);
+            heap[0] = heap[last];
+            heapIndex[heap[0]] = 0;
+            size--;
+            siftDown(0);
+            forEachNeighbor(idx, other -> {
+                if(candidate[other] == idx) {
+                    searchCandidate(other);
+                    // points inserted since its last search may be nearer than the removed point was
+                    siftUp(heapIndex[other]);
+                    siftDown(heapIndex[other]);
+                }
+            });
+        } else
+            size--;
+
+        // keep the points dense, by moving the last point into the freed index
+        if(idx != last)
+            moveLastPoint(idx, last);
+        // from a cell side on, the closest pair may not be in neighboring cells anymore, but it is not farther than
+        // the minimum candidate distance, so the grid is rebuilt around that (which makes it exact)
+        if(!upToDate || candidateDistance[heap[0]] < cellSide)
+            return;
+        if(size < 2 || candidateDistance[heap[0]] == Long.MAX_VALUE)
+            upToDate = false;   // no pair is known, solved again by the next call to currentMaxSide()
+        else if(buildGrid(CELL_SIDE_FACTOR * candidateDistance[heap[0]]) > MAX_CELL_POINTS)
+            buildGrid(CELL_SIDE_FACTOR * candidateDistance[heap[0]]);
+    }
+
+    /**
+     * @return The number of points in the set.
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * @return The maximum side length of squares around the current points, same as MaxSideLength.solve().
+     * @throws RuntimeException if the set has fewer than 2 points.
+     */
+    public long currentMaxSide(){
+        if(size < 2)
+            throw new RuntimeException("2 Points are required at least.");
+        if(!upToDate) {
+            PointSet points = new PointSet(Arrays.copyOf(xs, size), Arrays.copyOf(ys, size));
+            buildGrid(CELL_SIDE_FACTOR * new MaxSideLength().solve(points));
+        }
+        return candidateDistance[heap[0]];
+    }
+
+    /**
+     * Rebuilds the grid with cells of the given side, searches the candidates of all the points, and marks the
+     * state as up to date.
+     * @return The maximum number of points in a cell.
+     */
+    private int buildGrid(long cellSide){
+        this.cellSide = cellSide;
+        gridBuilds++;
+        cells.clear();
+        cellSizes.clear();
+        int maxCellPoints = 0;
+        for(int i = 0 ; i < size ; i++)
+            maxCellPoints = Math.max(maxCellPoints, addToCell(i));
+        for(int i = 0 ; i < size ; i++) {
+            searchCandidate(i);
+            heap[i] = i;
+            heapIndex[i] = i;
+        }
+        for(int pos = size / 2 - 1 ; pos >= 0 ; pos--)
+            siftDown(pos);
+        upToDate = true;
+        return maxCellPoints;
+    }
+
+    /**
+     * Sets the candidate of a point to the nearest point of its neighboring cells (it does not fix the heap).
+     */
+    private void searchCandidate(int i){
+        candidate[i] = CellTable.MISSING;
+        candidateDistance[i] = Long.MAX_VALUE;
+        forEachNeighbor(i, other -> {
+            long distance = computeChebyshevDistance(i, other);
+            if(distance < candidateDistance[i]) {
+                candidate[i] = other;
+                candidateDistance[i] = distance;
+            }
+        });
+    }
+
+    /**
+     * Applies the action to every other point of the 9 cells around the given point.
+     */
+    private void forEachNeighbor(int i, IntConsumer action){
+        long cellX = Math.floorDiv(xs[i], cellSide), cellY = Math.floorDiv(ys[i], cellSide);
+        for(long cx = cellX - 1 ; cx <= cellX + 1 ; cx++)
+            for(long cy = cellY - 1 ; cy <= cellY + 1 ; cy++)
+                for(int other = cells.get(CellTable.cellKey(cx, cy)) ; other != CellTable.MISSING ; other = nextInCell[other])
+                    if(other != i)
+                        action.accept(other);
+    }
+
+    private long cellKeyOf(int i){
+        return CellTable.cellKey(Math.floorDiv(xs[i], cellSide), Math.floorDiv(ys[i], cellSide));
+    }
+
+    /**
+     * @return The number of points in the cell of the point, with it.
+     */
+    private int addToCell(int i){
+        long cellKey = cellKeyOf(i);
+        nextInCell[i] = cells.get(cellKey);
+        cells.put(cellKey, i);
+        int cellPoints = Math.max(0, cellSizes.get(cellKey)) + 1;      // MISSING is -1
+        cellSizes.put(cellKey, cellPoints);
+        return cellPoints;
+    }
+
+    private void removeFromCell(int i){
+        long cellKey = cellKeyOf(i);
+        int cellPoints = cellSizes.get(cellKey) - 1;
+        if(cellPoints == 0)
+            cellSizes.remove(cellKey);
+        else
+            cellSizes.put(cellKey, cellPoints);
+        replaceInCell(i, nextInCell[i]);
+    }
+
+    /**
+     * Replaces the point i by the given point (or by the rest of the cell list) in the list of its cell.
+     */
+    private void replaceInCell(int i, int replacement){
+        long cellKey = cellKeyOf(i);
+        int first = cells.get(cellKey);
+        if(first == i) {
+            if(replacement == CellTable.MISSING)
+                cells.remove(cellKey);
+            else
+                cells.put(cellKey, replacement);
+            return;
+        }
+        int previous = first;
+        while(nextInCell[previous] != i)
+            previous = nextInCell[previous];
+        nextInCell[previous] = replacement;
+    }
+
+    /**
+     * Moves the last point into the freed index idx, and renames it in the grid, the candidates and the heap.
+     */
+    private void moveLastPoint(int idx, int last){
+        xs[idx] = xs[last];
+        ys[idx] = ys[last];
+        indexOf.put(PointSet.packXY(xs[idx], ys[idx]), idx);
+        if(!upToDate)
+            return;
+        replaceInCell(last, idx);
+        nextInCell[idx] = nextInCell[last];
+        candidate[idx] = candidate[last];
+        candidateDistance[idx] = candidateDistance[last];
+        heapIndex[idx] = heapIndex[last];
+        heap[heapIndex[idx]] = idx;
+        forEachNeighbor(idx, other -> {
+            if(candidate[other] == last)
+                candidate[other] = idx;
+        });
+    }
+
+    private void siftUp(int pos){
+        int i = heap[pos];
+        while(pos > 0 && candidateDistance[heap[(pos - 1) / 2]] > candidateDistance[i]) {
+            heap[pos] = heap[(pos - 1) / 2];
+            heapIndex[heap[pos]] = pos;
+            pos = (pos - 1) / 2;
+        }
+        heap[pos] = i;
+        heapIndex[i] = pos;
+    }
+
+    private void siftDown(int pos){
+        int i = heap[pos];
+        for(int child = 2 * pos + 1 ; child < size ; child = 2 * pos + 1) {
+            if(child + 1 < size && candidateDistance[heap[child + 1]] < candidateDistance[heap[child]])
+                child++;
+            if(candidateDistance[heap[child]] >= candidateDistance[i])
+                break;
+            heap[pos] = heap[child];
+            heapIndex[heap[pos]] = pos;
+            pos = child;
+        }
+        heap[pos] = i;
+        heapIndex[i] = pos;
+    }
+
+    private void grow(){
+        int capacity = size * 2;
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        nextInCell = Arrays.copyOf(nextInCell, capacity);
+        candidate = Arrays.copyOf(candidate, capacity);
+        candidateDistance = Arrays.copyOf(candidateDistance, capacity);
+        heap = Arrays.copyOf(heap, capacity);
+        heapIndex = Arrays.copyOf(heapIndex, capacity);
+    }
+
+    private long computeChebyshevDistance(int first, int second){
+        return Math.max(Math.abs((long) xs[first] - xs[second]), Math.abs((long) ys[first] - ys[second]));
+    }
+}
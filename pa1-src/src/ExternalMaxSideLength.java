@@ -0,0 +1,465 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Solves the same problem as MaxSideLength, for point files that don't fit in the heap (external memory mode).
+ *  1. The points are read in chunks that fit in the memory budget, each chunk is sorted by the x-coordinate and
+ *     written to a temporary file (a sorted run).
+ *  2. The runs are merged back into a single stream sorted by the x-coordinate, which is cut into slabs of
+ *     consecutive points. Each slab is solved in memory by MaxSideLength, together with the boundary strip of
+ *     the previous slabs: the points whose x-coordinate is closer than the current minimum distance to the
+ *     last processed x-coordinate, since only those can still form a closer pair with the points to come.
+ *  3. When the boundary strip fills more than half of a slab (a large number of points lie within the minimum
+ *     distance delta of a vertical line), it is solved as a band instead: the strip and the next points closer
+ *     than delta to its last x-coordinate are sorted by the y-coordinate (in sorted runs on the disk, like phase
+ *     1), and swept in that order, comparing each point with the previous points that are closer than delta in
+ *     the y-coordinate only. The band is narrower than 2 * delta and its points are at least delta apart, so
+ *     there are only a few of them in the sweep at any time. The boundary strip of the band is then its suffix
+ *     that is closer than delta to the next point, it holds only points that are new to the band, so every
+ *     point is swept at most twice.
+ * The answer is the same as the one of MaxSideLength.solve(), and the memory used is bounded by the budget.
+ */
+public class ExternalMaxSideLength {
+    /**
+     * Heap bytes per point while solving a slab: the 2 int coordinates of the slab (8), the long keys of its sort
+     * by MaxSideLength.solve() (8), and the 3 int scratch buffers of the IN_PLACE strategy (12). The sorted runs
+     * (phase 1) and the bands (phase 3) only need a long key per point on top of the slab.
+     */
+    private static final int BYTES_PER_POINT = 28;
+    /** The minimum number of points per slab (and per run), regardless of the budget. */
+    private static final int MIN_SLAB_SIZE = 1024;
+    /** The size of the buffer used to write a run, and the maximum size of the buffer used to read a run. */
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+
+    private final long memoryBudget;
+    private final File tempDirectory;
+
+    /**
+     * Main method that demonstrates the usage of this class.
+     * @param args Command-line arguments, the memory budget in megabytes, followed by the input file path.
+     */
+    public static void main(String[] args) {
+        if(args.length < 2)
+            throw new RuntimeException("Memory budget and input file were not passed as arguments.");
+        ExternalMaxSideLength solver = new ExternalMaxSideLength(Long.parseLong(args[0]) << 20);
+        System.out.println(solver.solve(args[1]));
+    }
+
+    /**
+     * Creates a solver that writes its sorted runs to the default temporary directory.
+     * @param memoryBudget The number of heap bytes that the solver may use for the points.
+     */
+    public ExternalMaxSideLength(long memoryBudget){
+        this(memoryBudget, null);
+    }
+
+    /**
+     * @param memoryBudget The number of heap bytes that the solver may use for the points.
+     * @param tempDirectory The directory of the sorted runs, or null for the default temporary directory.
+     */
+    public ExternalMaxSideLength(long memoryBudget, File tempDirectory){
+        if(memoryBudget <= 0)
+            throw new RuntimeException("The memory budget must be positive.");
+        this.memoryBudget = memoryBudget;
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * Solves the problem of finding the maximum side length of squares around a set of points.
+     * @param inputFile The path to the input file containing the point coordinates (text or binary format).
+     * @return The maximum side length of squares around the points.
+     * @throws RuntimeException if the input is invalid (fewer than 2 points or duplicate points).
+     */
+    public long solve(String inputFile){
+        int slabSize = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(MIN_SLAB_SIZE, memoryBudget / BYTES_PER_POINT));
+        List<File> runs = new ArrayList<>();
+        try (PointFileReader reader = PointFileReader.open(inputFile)) {
+            int numberOfPoints = reader.numberOfPoints();
+            if(numberOfPoints < 2)
+                throw new RuntimeException("2 Points are required at least.");
+            if(numberOfPoints <= slabSize)      // everything fits, no need for the disk
+                return new MaxSideLength().solve(readPoints(reader, numberOfPoints));
+
+            writeSortedRuns(reader, numberOfPoints, slabSize, runs);
+            return solveSlabs(runs, numberOfPoints, slabSize);
+        } catch (IOException E){
+            throw new RuntimeException("Sorted runs couldn't be written or read.", E);
+        } finally {
+            for(File run : runs)
+                run.delete();
+        }
+    }
+
+    /**
+     * Reads all the points of the file into memory.
+     * @param reader The reader, positioned at the first point.
+     * @param numberOfPoints The number of points to read.
+     * @return The points, in the order of the file.
+     */
+    private PointSet readPoints(PointFileReader reader, int numberOfPoints){
+        PointSet points = new PointSet(numberOfPoints);
+        reader.readPoints(points.xs, points.ys, 0, numberOfPoints);
+        return points;
+    }
+
+    /**
+     * Phase 1, reads the points in chunks of runSize points, and writes each chunk sorted by the x-coordinate
+     * (then the y-coordinate) as packed keys to a temporary file.
+     * @param reader The reader, positioned at the first point.
+     * @param numberOfPoints The number of points to read.
+     * @param runSize The maximum number of points per run.
+     * @param runs The list to which the run files are added.
+     */
+    private void writeSortedRuns(PointFileReader reader, int numberOfPoints, int runSize, List<File> runs) throws IOException {
+        long[] keys = new long[runSize];
+        for(int start = 0 ; start < numberOfPoints ; start += runSize) {
+            int count = Math.min(runSize, numberOfPoints - start);
+            for(int i = 0 ; i < count ; i++)
+                keys[i] = PointSet.packXY(reader.nextInt(), reader.nextInt());
+            writeSortedRun(keys, count, runs);
+        }
+    }
+
+    /**
+     * Sorts the first count keys, and writes them to a new temporary file.
+     * @param keys The keys, sorted in place.
+     * @param count The number of keys to write.
+     * @param runs The list to which the run file is added.
+     */
+    private void writeSortedRun(long[] keys, int count, List<File> runs) throws IOException {
+        Arrays.sort(keys, 0, count);
+        File run = File.createTempFile("points-run", ".bin", tempDirectory);
+        runs.add(run);
+        try (DataOutputStream out = newOutput(run)) {
+            for(int i = 0 ; i < count ; i++)
+                out.writeLong(keys[i]);
+        }
+    }
+
+    private static DataOutputStream newOutput(File file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), IO_BUFFER_SIZE));
+    }
+
+    private static DataInputStream newInput(File file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(file), IO_BUFFER_SIZE));
+    }
+
+    /**
+     * @return The size of the read buffer of each of the given number of runs, so that they take 1/8 of the budget.
+     */
+    private int readBufferSize(int numberOfRuns){
+        return (int) Math.max(1024, Math.min(IO_BUFFER_SIZE, memoryBudget / 8 / numberOfRuns));
+    }
+
+    /**
+     * Phase 2, merges the sorted runs, and solves the merged stream slab by slab.
+     * @param runs The sorted run files.
+     * @param numberOfPoints The number of points in the runs.
+     * @param slabSize The maximum number of points per slab (including the boundary strip).
+     * @return The maximum side length of squares around the points.
+     */
+    private long solveSlabs(List<File> runs, int numberOfPoints, int slabSize) throws IOException {
+        RunMerger merger = new RunMerger(runs, readBufferSize(runs.size()));
+        try {
+            return new SlabSweep(merger, numberOfPoints, slabSize).solve();
+        } finally {
+            merger.close();
+        }
+    }
+
+    /**
+     * The state of phase 2: the merged stream, and the minimum distance found so far.
+     */
+    private class SlabSweep {
+        private final RunMerger merger;
+        private final int slabSize;
+        private final MaxSideLength solver = new MaxSideLength();
+        private int remaining;                      // the number of points not yet taken from the merged stream
+        private long previousKey;
+        private boolean first = true;
+        private long minDistance = Long.MAX_VALUE;
+
+        SlabSweep(RunMerger merger, int numberOfPoints, int slabSize){
+            this.merger = merger;
+            this.remaining = numberOfPoints;
+            this.slabSize = slabSize;
+        }
+
+        /**
+         * Solves the merged stream slab by slab, the points of a slab are filled in place, after the boundary strip
+         * of the previous slab (moved to its start).
+         */
+        long solve() throws IOException {
+            PointSet slab = new PointSet(slabSize);
+            int stripStart = 0, stripSize = 0;
+            while(remaining > 0) {
+                if(stripSize > slabSize / 2) {
+                    stripSize = solveBand(slab, stripStart, stripSize);
+                    stripStart = 0;
+                    continue;
+                }
+
+                int count = Math.min(slabSize, stripSize + remaining);
+                PointSet next = count == slab.size() ? slab : new PointSet(count);       // the last slab is smaller
+                System.arraycopy(slab.xs, stripStart, next.xs, 0, stripSize);
+                System.arraycopy(slab.ys, stripStart, next.ys, 0, stripSize);
+                slab = next;
+                for(int i = stripSize ; i < count ; i++) {
+                    long key = nextKey();
+                    slab.set(i, PointSet.unpackX(key), PointSet.unpackY(key));
+                }
+
+                // a slab with a single point (and no strip) can't be closer than the current minimum to anything
+                if(count >= 2)
+                    minDistance = Math.min(minDistance, solver.solve(slab));
+                stripStart = getBoundaryStripStart(slab, minDistance);
+                stripSize = count - stripStart;
+            }
+            return minDistance;
+        }
+
+        /**
+         * Phase 3, solves the band of an oversized boundary strip and of the next points closer than minDistance
+         * to its last x-coordinate, by sweeping it in the order of the y-coordinate. Repeats with the boundary strip
+         * of the band, as long as it is oversized too.
+         * @param slab The slab, holding the boundary strip.
+         * @param stripStart The start of the boundary strip in the slab.
+         * @param stripSize The number of points of the boundary strip.
+         * @return The size of the boundary strip of the last band, which is moved to the start of the slab.
+         */
+        private int solveBand(PointSet slab, int stripStart, int stripSize) throws IOException {
+            long[] keys = new long[slabSize];       // keys by the y-coordinate, then the x-coordinate
+            long lastX = slab.xs[stripStart + stripSize - 1];
+            File strip = null;                      // once the strip is on the disk, it is a suffix of this file
+            long stripOffset = 0;
+            try {
+                while(true) {
+                    // the strip and the next points that are closer than minDistance to it, sorted by y
+                    List<File> runs = new ArrayList<>();
+                    File band;
+                    int bandSize = 0, count = 0;
+                    try {
+                        if(strip == null) {
+                            for(int i = stripStart ; i < stripStart + stripSize ; i++)
+                                count = addByY(keys, count, slab.xs[i], slab.ys[i], runs);
+                        } else {
+                            try (DataInputStream in = newInput(strip)) {
+                                in.skipNBytes(stripOffset * Long.BYTES);
+                                for(int i = 0 ; i < stripSize ; i++)
+                                    count = addByY(keys, count, in.readLong(), runs);
+                            }
+                            strip.delete();
+                        }
+                        // the next points are kept in the band file, the next strip is among them
+                        band = strip = File.createTempFile("points-band", ".bin", tempDirectory);
+                        try (DataOutputStream out = newOutput(band)) {
+                            while(remaining > 0 && PointSet.unpackX(merger.peek()) < lastX + minDistance) {
+                                long key = nextKey();
+                                out.writeLong(key);
+                                bandSize++;
+                                count = addByY(keys, count, key, runs);
+                            }
+                        }
+                        writeSortedRun(keys, count, runs);
+                        sweepByY(runs);
+                    } finally {
+                        for(File run : runs)
+                            run.delete();
+                    }
+                    if(remaining == 0)
+                        return 0;
+
+                    // the boundary strip of the band, its points that are closer than minDistance to the next point
+                    long nextX = PointSet.unpackX(merger.peek());
+                    try (DataInputStream in = newInput(band)) {
+                        int outside = 0;
+                        long key = 0;
+                        while(outside < bandSize) {
+                            key = in.readLong();
+                            if(nextX - PointSet.unpackX(key) < minDistance)
+                                break;
+                            outside++;
+                        }
+                        stripOffset = outside;
+                        stripSize = bandSize - outside;
+                        if(stripSize <= slabSize / 2) {
+                            for(int i = 0 ; i < stripSize ; i++) {
+                                if(i > 0)
+                                    key = in.readLong();
+                                slab.set(i, PointSet.unpackX(key), PointSet.unpackY(key));
+                            }
+                            return stripSize;
+                        }
+                    }
+                    lastX = PointSet.unpackX(previousKey);      // the last point of the band
+                }
+            } finally {
+                if(strip != null)
+                    strip.delete();
+            }
+        }
+
+        /**
+         * Sweeps the points of the sorted runs in the order of the y-coordinate, and lowers minDistance to the
+         * distance of any closer pair. The points that are closer than minDistance to the current point in the
+         * y-coordinate are kept in a window, in the same order.
+         */
+        private void sweepByY(List<File> runs) throws IOException {
+            int[] windowXs = new int[16], windowYs = new int[16];
+            int head = 0, tail = 0;
+            RunMerger byY = new RunMerger(runs, readBufferSize(runs.size()));
+            try {
+                while(byY.hasNext()) {
+                    long key = byY.next();
+                    int x = PointSet.unpackY(key), y = PointSet.unpackX(key);
+                    while(head < tail && (long) y - windowYs[head] >= minDistance)
+                        head++;
+                    for(int i = head ; i < tail ; i++)
+                        minDistance = Math.min(minDistance, Math.max(Math.abs((long) x - windowXs[i]), (long) y - windowYs[i]));
+
+                    if(tail == windowXs.length) {
+                        // drop the points that left the window, and grow only if it is more than half full
+                        int size = tail - head;
+                        if(size > windowXs.length / 2) {
+                            windowXs = Arrays.copyOf(windowXs, windowXs.length * 2);
+                            windowYs = Arrays.copyOf(windowYs, windowYs.length * 2);
+                        }
+                        System.arraycopy(windowXs, head, windowXs, 0, size);
+                        System.arraycopy(windowYs, head, windowYs, 0, size);
+                        head = 0;
+                        tail = size;
+                    }
+                    windowXs[tail] = x;
+                    windowYs[tail++] = y;
+                }
+            } finally {
+                byY.close();
+            }
+        }
+
+        /**
+         * Adds a point to the keys by the y-coordinate, and writes them as a sorted run when they are full.
+         * @return The new number of keys.
+         */
+        private int addByY(long[] keys, int count, int x, int y, List<File> runs) throws IOException {
+            if(count == keys.length) {
+                writeSortedRun(keys, count, runs);
+                count = 0;
+            }
+            keys[count] = PointSet.packXY(y, x);
+            return count + 1;
+        }
+
+        private int addByY(long[] keys, int count, long key, List<File> runs) throws IOException {
+            return addByY(keys, count, PointSet.unpackX(key), PointSet.unpackY(key), runs);
+        }
+
+        /**
+         * @return The next key of the merged stream.
+         * @throws RuntimeException if it is a duplicate of the previous key (the stream is sorted).
+         */
+        private long nextKey() throws IOException {
+            long key = merger.next();
+            if(!first && key == previousKey)
+                throw new RuntimeException("Invalid Input, duplicates are not allowed");
+            first = false;
+            previousKey = key;
+            remaining--;
+            return key;
+        }
+    }
+
+    /**
+     * Finds the points of a slab that are closer than the minimum distance to its last x-coordinate.
+     * @param slab The slab, sorted by the x-coordinate.
+     * @param minDistance The minimum distance found so far.
+     * @return The start of the boundary strip, a suffix of the slab.
+     */
+    private static int getBoundaryStripStart(PointSet slab, long minDistance){
+        int lastX = slab.xs[slab.size() - 1];
+        int start = slab.size();
+        while(start > 0 && lastX - (long) slab.xs[start - 1] < minDistance)
+            start--;
+        return start;
+    }
+
+    /**
+     * K-way merge of sorted run files, using a binary min-heap of the runs keyed by their current (head) key.
+     */
+    private static class RunMerger implements Closeable {
+        private final DataInputStream[] inputs;
+        private final long[] remaining;         // the number of keys left in each run (including the head)
+        private final long[] heads;             // the current key of each run
+        private final int[] heap;               // the indices of the non-exhausted runs, a min-heap on heads
+        private int heapSize;
+
+        RunMerger(List<File> runs, int bufferSize) throws IOException {
+            inputs = new DataInputStream[runs.size()];
+            remaining = new long[runs.size()];
+            heads = new long[runs.size()];
+            heap = new int[runs.size()];
+            try {
+                for(int i = 0 ; i < runs.size() ; i++) {
+                    inputs[i] = new DataInputStream(new BufferedInputStream(new FileInputStream(runs.get(i)), bufferSize));
+                    remaining[i] = runs.get(i).length() / Long.BYTES;
+                    if(remaining[i] > 0) {
+                        heads[i] = inputs[i].readLong();
+                        heap[heapSize++] = i;
+                    }
+                }
+            } catch (IOException E){
+                close();
+                throw E;
+            }
+            for(int i = heapSize / 2 - 1 ; i >= 0 ; i--)
+                siftDown(i);
+        }
+
+        boolean hasNext(){
+            return heapSize > 0;
+        }
+
+        /**
+         * @return The next key, without taking it from the stream.
+         */
+        long peek(){
+            return heads[heap[0]];
+        }
+
+        long next() throws IOException {
+            int run = heap[0];
+            long key = heads[run];
+            if(--remaining[run] > 0)
+                heads[run] = inputs[run].readLong();
+            else
+                heap[0] = heap[--heapSize];
+            siftDown(0);
+            return key;
+        }
+
+        private void siftDown(int i){
+            while(true) {
+                int smallest = i, left = 2 * i + 1, right = left + 1;
+                if(left < heapSize && heads[heap[left]] < heads[heap[smallest]])
+                    smallest = left;
+                if(right < heapSize && heads[heap[right]] < heads[heap[smallest]])
+                    smallest = right;
+                if(smallest == i)
+                    return;
+                int temp = heap[i];
+                heap[i] = heap[smallest];
+                heap[smallest] = temp;
+                i = smallest;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            for(DataInputStream input : inputs)
+                if(input != null)
+                    input.close();
+        }
+    }
+}
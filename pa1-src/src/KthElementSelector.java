@@ -1,64 +1,118 @@
+import java.nio.IntBuffer;
 import java.util.Arrays;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
 
 /**
  * Kth Element Selection Problem:
  *  Given a collection of unsorted elements (possibly an array), it is required to find the kth smallest element
  *  among this collection such that, when k = 0, the element is the minimum element in the collection, and when
  *  k = collection.length() - 1, the element is the maximum element in the collection.
+ * The elements don't have to be unique: the partitions are three-way (see partition()), so arrays with many
+ * repeated values are handled in linear (expected) time as well, and the kth element is the element at the index
+ * k - 1 of the sorted array.
+ * Arrays of longs and doubles, indices selected by their keys (argselect), and off-heap integers (buffers and
+ * memory-mapped files, see MappedIntFile), are handled by the randomized and deterministic engines over a
+ * SelectionView, the arrays of integers have their own (faster) engines.
  */
 public class KthElementSelector {
+    /** Partitions with at most this number of elements are sorted by insertion sort, instead of being partitioned. */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    /**
+     * Whether the comparisons of elements are counted (see comparisons()), set by the system property
+     * "kthselector.countComparisons" (for KthSelectorRegressionBenchmark). It is a constant, so when it is not set
+     * the JIT removes the counting from the comparisons, and they cost nothing.
+     */
+    static final boolean COUNT_COMPARISONS = Boolean.getBoolean("kthselector.countComparisons");
+    /** The number of comparisons of elements, by all the threads, since the last resetComparisons(). */
+    private static final LongAdder COMPARISONS = new LongAdder();
 
     // --------------------------- Kth Element Selection: Randomized Approach ---------------------------
     /**
      * This function employs a randomized approach to find the kth smallest element in an array. It calls
-     * the 'randomSelect' function, which recursively partitions and selects elements to determine the kth
+     * the 'randomSelect' function, which repeatedly partitions and selects elements to determine the kth
      * smallest element. The algorithm randomly selects pivot elements to optimize performance.
-     * @param elements An unsorted array of unique integers.
+     * The pivots are drawn from the random generator of the calling thread (ThreadLocalRandom), so concurrent
+     * callers neither allocate nor share a generator.
+     * @param elements An unsorted array of integers.
      * @param k The rank of the element to be retrieved, 1 based ranking.
      * @return The kth smallest element (element whose rank is k) in the given unsorted array.
      */
     public static int randomizedApproach(int[] elements, int k){
-        return randomSelect(elements, 0, elements.length - 1, k);
+        return randomizedApproach(elements, k, ThreadLocalRandom.current());
     }
 
     /**
-     * The recursive method, that will be delegated to from the public method randomizedApproach()
-     * to find the kth smallest element among an array of unsorted unique integers.
-     * @param elements An unsorted array of unique integers.
+     * Same as randomizedApproach(elements, k), with the pivots drawn from a generator seeded by the given seed, so
+     * that the sequence of partitions (and the running time) is reproducible, as needed by benchmarks.
+     * @param elements An unsorted array of integers.
+     * @param k The rank of the element to be retrieved, 1 based ranking.
+     * @param seed The seed of the random generator.
+     * @return The kth smallest element (element whose rank is k) in the given unsorted array.
+     */
+    public static int randomizedApproach(int[] elements, int k, long seed){
+        return randomizedApproach(elements, k, new SplittableRandom(seed));
+    }
+
+    /**
+     * Same as randomizedApproach(elements, k), with the pivots drawn from the given random generator.
+     * @param elements An unsorted array of integers.
+     * @param k The rank of the element to be retrieved, 1 based ranking.
+     * @param random The random generator, it must not be shared with other threads unless it is thread safe.
+     * @return The kth smallest element (element whose rank is k) in the given unsorted array.
+     */
+    public static int randomizedApproach(int[] elements, int k, RandomGenerator random){
+        return randomSelect(elements, 0, elements.length - 1, k, random);
+    }
+
+    /**
+     * The method, that will be delegated to from the public method randomizedApproach()
+     * to find the kth smallest element among an array of unsorted integers.
+     * Only one side of each partition is processed, so the tail recursion is written as a loop.
+     * @param elements An unsorted array of integers.
      * @param leftIdx The left index of the partition, upon which the algorithm is currently working on.
      * @param rightIdx The right index of the partition, upon which the algorithm is currently working on.
      * @param k The rank of the element to be found.
+     * @param random The random generator of the pivots.
      * @return The element's (of rank k) value.
      */
-    private static int randomSelect(int[] elements, int leftIdx, int rightIdx, int k){
+    private static int randomSelect(int[] elements, int leftIdx, int rightIdx, int k, RandomGenerator random){
         // base case
-        if(leftIdx == rightIdx)
-            return elements[leftIdx];
-
-        int pivotIdx = randomPartition(elements, leftIdx, rightIdx);
-        int pivotRank = pivotIdx - leftIdx + 1;
-        // found the kth element
-        if(k == pivotRank)
-            return elements[pivotIdx];
-        // recursive cases
-        if(k < pivotRank)
-            return randomSelect(elements, leftIdx, pivotIdx - 1, k);
-        else
-            return randomSelect(elements, pivotIdx + 1, rightIdx, k - pivotRank);
+        while(leftIdx != rightIdx) {
+            long pivotRange = randomPartition(elements, leftIdx, rightIdx, random);
+            // the ranks (relative to the current partition) of the elements equal to the pivot
+            int pivotFromRank = rangeStartOf(pivotRange) - leftIdx + 1;
+            int pivotToRank = rangeEndOf(pivotRange) - leftIdx + 1;
+            // continue with the side of the partition that has the kth element
+            if(k < pivotFromRank)
+                rightIdx = rangeStartOf(pivotRange) - 1;
+            else if(k > pivotToRank) {
+                leftIdx = rangeEndOf(pivotRange) + 1;
+                k -= pivotToRank;
+            } else                                  // found the kth element, it is equal to the pivot
+                return elements[leftIdx + k - 1];
+        }
+        return elements[leftIdx];
     }
 
     /**
      * This function essentially provides the same functionality of the normal partition() method, it makes use
      * of the normal implementation after swapping the first element of the array (at the leftIdx position)
      * with an element whose position is randomly selected.
-     * @param elements An unsorted array of unique integers.
+     * @param elements An unsorted array of integers.
      * @param leftIdx The left index of the partition, upon which the algorithm is currently working on.
      * @param rightIdx The right index of the partition, upon which the algorithm is currently working on.
-     * @return The pivot's (randomly selected) index, after being settled in its correct position.
+     * @param random The random generator of the pivot.
+     * @return The range of indices of the elements equal to the pivot (randomly selected), after being settled in
+     * their correct positions, packed by packRange().
      */
-    private static int randomPartition(int[] elements, int leftIdx, int rightIdx){
-        Random random = new Random();
+    private static long randomPartition(int[] elements, int leftIdx, int rightIdx, RandomGenerator random){
         int randomIdx = leftIdx + random.nextInt(rightIdx - leftIdx + 1);
         swap(elements, leftIdx, randomIdx);
         return partition(elements, leftIdx, rightIdx);      // after picking the random pivot, use the normal partition() method.
@@ -68,7 +122,7 @@ public class KthElementSelector {
     /**
      * This function employs a deterministic approach to find the kth smallest element in an array, using the median of medians algorithm
      * that selects an array median in linear time.
-     * @param elements An unsorted array of unique integers.
+     * @param elements An unsorted array of integers.
      * @param k The rank of the element to be retrieved, 1 based ranking.
      * @return The kth smallest element (element whose rank is k) in the given unsorted array.
      */
@@ -77,48 +131,103 @@ public class KthElementSelector {
     }
 
     /**
-     * The recursive method used to find the kth smallest element among an array of unsorted unique integers.
-     * @param elements An unsorted array of unique integers.
+     * The median of medians algorithm, used to find the kth smallest element among an array of unsorted integers.
+     * It is iterative and allocates nothing:
+     *  - The medians of the groups of 5 are computed by a sorting network, and moved in place to the front of the
+     *    partition, so the median of medians is selected (the nested selection) within the same array.
+     *  - The nested selections are kept in an explicit stack of frames (left index, right index, rank), instead of
+     *    the call stack, and since a selection leaves its element at the index of its rank, the median of medians
+     *    is found at a known index, without searching for it.
+     * @param elements An unsorted array of integers.
      * @param leftIdx The left index of the partition, upon which the algorithm is currently working on.
      * @param rightIdx The right index of the partition, upon which the algorithm is currently working on.
      * @param k The rank of the element to be found.
-     * @return The element's (of rank k) value.
+     * @return The element's (of rank k) value, which is also moved to the index leftIdx + k - 1.
      */
     private static int deterministicSelect(int[] elements, int leftIdx, int rightIdx, int k){
-        // base case
-        if(leftIdx == rightIdx)
-            return elements[leftIdx];
-
-        int[] medians = getMedians(elements, leftIdx, rightIdx);        // get the partition medians (after dividing the partition to groups of 5)
-        int medianOfMediansValue = deterministicApproach(medians, (int)Math.ceil(medians.length / 2.0));    // get recursively the medians median
-        int medianOfMediansIdx = getElementIdx(elements, leftIdx, rightIdx, medianOfMediansValue);          // compute the median index (that falls in this partition)
-        swap(elements, medianOfMediansIdx, leftIdx);                    // swap the median computed, with the most left element of the partition
+        int[] frames = DETERMINISTIC_FRAMES.get();
+        int top = 0;
+        frames[0] = leftIdx;
+        frames[1] = rightIdx;
+        frames[2] = k;
+        boolean nestedSelectionDone = false;
+        while(true) {
+            int left = frames[3 * top], right = frames[3 * top + 1], rank = frames[3 * top + 2];
+            int resultIdx;
+            if(nestedSelectionDone) {
+                // the median of medians is the median of the group medians, that were moved to the front
+                nestedSelectionDone = false;
+                int numberOfGroups = getNumberOfGroups(left, right);
+                swap(elements, left, left + (numberOfGroups + 1) / 2 - 1);
 
-        int pivotIdx = partition(elements, leftIdx, rightIdx);          // compute the median index after being inserted into its correct position
-        int pivotRank = pivotIdx - leftIdx + 1;                         // compute the rank relative to the current partition
+                long pivotRange = partition(elements, left, right);   // settle the median in its correct position
+                // the ranks (relative to the current partition) of the elements equal to the median
+                int pivotFromRank = rangeStartOf(pivotRange) - left + 1;
+                int pivotToRank = rangeEndOf(pivotRange) - left + 1;
+                if(rank < pivotFromRank) {          // kth element is in the left subarray of this partition
+                    frames[3 * top + 1] = rangeStartOf(pivotRange) - 1;
+                    continue;
+                }
+                if(rank > pivotToRank) {            // kth element is in the right subarray of this partition
+                    frames[3 * top] = rangeEndOf(pivotRange) + 1;
+                    frames[3 * top + 2] = rank - pivotToRank;
+                    continue;
+                }
+                resultIdx = left + rank - 1;        // kth element found, it is equal to the median
+            } else if(right - left + 1 <= INSERTION_SORT_THRESHOLD) {
+                // base case
+                insertionSort(elements, left, right);
+                resultIdx = left + rank - 1;
+            } else {
+                // select the median of the group medians, in a nested frame
+                int numberOfGroups = moveGroupMediansToFront(elements, left, right);
+                top++;
+                frames[3 * top] = left;
+                frames[3 * top + 1] = left + numberOfGroups - 1;
+                frames[3 * top + 2] = (numberOfGroups + 1) / 2;
+                continue;
+            }
 
-        if(k == pivotRank)
-            return elements[pivotIdx];      // kth element found
-        if(pivotRank > k)                   // kth element is in the left subarray of this partition
-            return deterministicSelect(elements, leftIdx, pivotIdx - 1, k);
-        else                                // kth element is in the right subarray of this partition
-            return deterministicSelect(elements, pivotIdx + 1, rightIdx, k - pivotRank);
-        // k = k - pivotRank, because we will process a new subarray of this partition, so the rank
-        // of the kth element, must be relative to its starting position.
+            if(top == 0)
+                return elements[resultIdx];
+            top--;                                  // the nested selection is done, resume the enclosing one
+            nestedSelectionDone = true;
+        }
     }
 
     /**
-     * Calculates the medians of groups of elements within the specified range (the array partition).
-     * @param elements An unsorted array of unique integers.
+     * The maximum number of nested selections of the median of medians algorithm. Each nested selection works on
+     * the medians of the enclosing one, so it has at most a fifth of its elements (rounded up), hence
+     * 2^31 elements need 13 nested selections at most before reaching the base case.
+     */
+    private static final int MAX_DETERMINISTIC_FRAMES = 16;
+    /** The stack of frames of the median of medians algorithm, one per thread, so that no call allocates it. */
+    private static final ThreadLocal<int[]> DETERMINISTIC_FRAMES =
+            ThreadLocal.withInitial(() -> new int[3 * MAX_DETERMINISTIC_FRAMES]);
+
+    /**
+     * Computes the medians of groups of 5 elements within the specified range (the array partition), and moves
+     * them to the front of the partition, the median of the group i is moved to the index leftIdx + i.
+     * @param elements An unsorted array of integers.
      * @param leftIdx The left index of the partition.
      * @param rightIdx The right index of the partition.
-     * @return An array containing the medians of groups of elements found in the specified partition.
+     * @return The number of groups (medians).
      */
-    private static int[] getMedians(int[] elements, int leftIdx, int rightIdx){
-        int[] medians = new int[getNumberOfGroups(leftIdx, rightIdx)];
-        for(int i = leftIdx ; i <= rightIdx ; i += 5)      // jump 5 positions, in each iteration (group size)
-            medians[(i - leftIdx) / 5] = getMedian(elements, i, rightIdx);      // insert the group median, into the medians array
-        return medians;
+    private static int moveGroupMediansToFront(int[] elements, int leftIdx, int rightIdx){
+        int group = 0;
+        // the group i starts at leftIdx + 5i, which is after leftIdx + i, so no group is overwritten before it is used
+        for(int i = leftIdx ; i <= rightIdx ; i += 5, group++) {      // jump 5 positions, in each iteration (group size)
+            int medianIdx;
+            if(i + 4 <= rightIdx) {
+                sort5(elements, i);
+                medianIdx = i + 2;
+            } else {                                                    // the last group may have fewer elements
+                insertionSort(elements, i, rightIdx);
+                medianIdx = i + (rightIdx - i) / 2;
+            }
+            swap(elements, leftIdx + group, medianIdx);
+        }
+        return group;
     }
 
     /**
@@ -128,43 +237,1027 @@ public class KthElementSelector {
      * @return The number of groups of 5 elements.
      */
     private static int getNumberOfGroups(int leftIdx, int rightIdx){
-        return (int) Math.ceil((rightIdx - leftIdx + 1) / 5.0);
+        return (rightIdx - leftIdx + 5) / 5;
     }
 
     /**
-     * Calculates the median of a group of elements within the specified range.
-     * @param elements An unsorted array of unique integers.
-     * @param startIdx The starting index of the group.
-     * @param maxIdx The maximum index within the group. (keeping in mind that we are working on groups of 5s)
-     * @return The median value of the group.
+     * Sorts the 5 elements starting at the given index in place, by an optimal sorting network (9 comparators).
+     * @param elements An unsorted array of integers.
+     * @param i The index of the first element of the group.
      */
-    private static int getMedian(int[] elements, int startIdx, int maxIdx){
-        int[] groupElements = new int[Math.min(5, maxIdx - startIdx + 1)];       // Array is initialized with 0 values.
+    private static void sort5(int[] elements, int i){
+        compareExchange(elements, i, i + 1);
+        compareExchange(elements, i + 3, i + 4);
+        compareExchange(elements, i + 2, i + 4);
+        compareExchange(elements, i + 2, i + 3);
+        compareExchange(elements, i + 1, i + 4);
+        compareExchange(elements, i, i + 3);
+        compareExchange(elements, i, i + 2);
+        compareExchange(elements, i + 1, i + 3);
+        compareExchange(elements, i + 1, i + 2);
+    }
 
-        // fetch the group elements
-        System.arraycopy(elements, startIdx, groupElements, 0, groupElements.length);
-        // sort the group elements
-        Arrays.sort(groupElements);
+    /**
+     * Orders 2 elements of the array, such that the element at the index i is not greater than the one at j.
+     */
+    private static void compareExchange(int[] elements, int i, int j){
+        int a = elements[i], b = elements[j];
+        countComparisons(1);
+        elements[i] = Math.min(a, b);
+        elements[j] = Math.max(a, b);
+    }
 
-        return groupElements[(int)(Math.ceil(groupElements.length / 2.0) - 1)];
+    // --------------------------- Kth Element Selection: Introselect Approach ---------------------------
+    /** Partitions with at least this number of elements use the ninther as a pivot, instead of the median of 3. */
+    private static final int NINTHER_THRESHOLD = 128;
+    /**
+     * The partitions of introselect scan at most this number of times the array length in total, a good pivot
+     * scans about 2.5 times the length (the partitions shrink geometrically).
+     */
+    private static final int INTROSELECT_SCAN_FACTOR = 4;
+
+    /**
+     * This function employs a hybrid approach (introselect) to find the kth smallest element in an array. It
+     * partitions around a cheap pivot (the median of 3 elements, or the ninther, the median of 3 medians of 3, for
+     * large partitions) like the randomized approach, while counting the elements scanned by the partitions. When
+     * the next partition would exceed a budget of INTROSELECT_SCAN_FACTOR times the array length, the partitions
+     * aren't shrinking fast enough (as on adversarial input, where each pivot may peel off only a few elements), so
+     * the rest of the work is delegated to the median of medians algorithm. Both parts are linear, which bounds the
+     * running time by O(n). (A limit on the number of partitions, such as 2 log n, would not: O(log n) partitions
+     * that barely shrink scan O(n log n) elements.)
+     * @param elements An unsorted array of integers.
+     * @param k The rank of the element to be retrieved, 1 based ranking.
+     * @return The kth smallest element (element whose rank is k) in the given unsorted array.
+     */
+    public static int introselectApproach(int[] elements, int k){
+        int leftIdx = 0, rightIdx = elements.length - 1;
+        long scanBudget = (long) INTROSELECT_SCAN_FACTOR * elements.length;
+        while(rightIdx - leftIdx + 1 > INSERTION_SORT_THRESHOLD) {
+            scanBudget -= rightIdx - leftIdx + 1;
+            if(scanBudget < 0)
+                return deterministicSelect(elements, leftIdx, rightIdx, k);
+
+            swap(elements, leftIdx, getPivotCandidateIdx(elements, leftIdx, rightIdx));
+            long pivotRange = partition(elements, leftIdx, rightIdx);
+            int pivotFromRank = rangeStartOf(pivotRange) - leftIdx + 1;
+            int pivotToRank = rangeEndOf(pivotRange) - leftIdx + 1;
+            if(k < pivotFromRank)
+                rightIdx = rangeStartOf(pivotRange) - 1;
+            else if(k > pivotToRank) {
+                leftIdx = rangeEndOf(pivotRange) + 1;
+                k -= pivotToRank;
+            } else
+                return elements[leftIdx + k - 1];
+        }
+        insertionSort(elements, leftIdx, rightIdx);
+        return elements[leftIdx + k - 1];
     }
 
     /**
-     * Finds the index of a specific element within the given subarray.
-     * @param elements An unsorted array of unique integers.
-     * @param leftIdx The left index of the subarray.
-     * @param rightIdx The right index of the subarray.
-     * @param element The element, whose index is to be found.
-     * @return The index of the element within the subarray.
-     * @throws RuntimeException if the element is not found in the specified subarray.
+     * Picks the pivot of a partition, the median of its first, middle and last elements, or for large partitions,
+     * the ninther (the median of the medians of 3 evenly spaced triplets).
+     * @param elements An unsorted array of integers.
+     * @param leftIdx The left index of the partition.
+     * @param rightIdx The right index of the partition.
+     * @return The index of the pivot.
      */
-    private static int getElementIdx(int[] elements, int leftIdx, int rightIdx, int element){
-        for(int i = leftIdx ; i <= rightIdx ; i++)
-            if(elements[i] == element)
-                return i;
-        // in case that the given element was not found, this indicates a wrong algorithm implementation
-        // as the median value calculated (median of medians), can't be found in the given subarray.
-        throw new RuntimeException("Element was not found in the given subarray.");
+    private static int getPivotCandidateIdx(int[] elements, int leftIdx, int rightIdx){
+        int middleIdx = leftIdx + (rightIdx - leftIdx) / 2;
+        if(rightIdx - leftIdx + 1 < NINTHER_THRESHOLD)
+            return getMedianOf3Idx(elements, leftIdx, middleIdx, rightIdx);
+        int step = (rightIdx - leftIdx) / 8;
+        return getMedianOf3Idx(elements,
+                getMedianOf3Idx(elements, leftIdx, leftIdx + step, leftIdx + 2 * step),
+                getMedianOf3Idx(elements, middleIdx - step, middleIdx, middleIdx + step),
+                getMedianOf3Idx(elements, rightIdx - 2 * step, rightIdx - step, rightIdx));
+    }
+
+    /**
+     * @return The index (among i, j and l) of the median of the 3 elements at these indices.
+     */
+    private static int getMedianOf3Idx(int[] elements, int i, int j, int l){
+        int a = elements[i], b = elements[j], c = elements[l];
+        if(less(a, b))
+            return less(b, c) ? j : (less(a, c) ? l : i);
+        return less(a, c) ? i : (less(b, c) ? l : j);
+    }
+
+    /**
+     * Sorts a (small) partition of the array in place, by insertion sort.
+     * @param elements An unsorted array of integers.
+     * @param leftIdx The left index of the partition.
+     * @param rightIdx The right index of the partition.
+     */
+    private static void insertionSort(int[] elements, int leftIdx, int rightIdx){
+        for(int i = leftIdx + 1 ; i <= rightIdx ; i++) {
+            int element = elements[i];
+            int j = i - 1;
+            for( ; j >= leftIdx && less(element, elements[j]) ; j--)
+                elements[j + 1] = elements[j];
+            elements[j + 1] = element;
+        }
+    }
+
+    // --------------------------- Kth Element Selection: Floyd-Rivest Approach ---------------------------
+    /** Partitions with more elements than this pick their pivots from a recursively selected sample. */
+    private static final int FLOYD_RIVEST_SAMPLE_THRESHOLD = 600;
+
+    /**
+     * This function employs the Floyd-Rivest algorithm to find the kth smallest element in an array. Before
+     * partitioning a large partition, it selects from a small sample (of size ~n^(2/3)) 2 elements that are
+     * expected to tightly bracket the kth element, so the partitions shrink much faster than with a random pivot,
+     * and the expected number of comparisons is n + min(k, n - k) + o(n), versus about 2n to 3.4n for the
+     * randomized approach.
+     * @param elements An unsorted array of integers.
+     * @param k The rank of the element to be retrieved, 1 based ranking.
+     * @return The kth smallest element (element whose rank is k) in the given unsorted array.
+     */
+    public static int floydRivestApproach(int[] elements, int k){
+        floydRivestSelect(elements, 0, elements.length - 1, k - 1);
+        return elements[k - 1];
+    }
+
+    /**
+     * Rearranges a partition of the array, such that the element at the target index is the one that would be there
+     * if the partition was sorted, the elements before it are smaller, and the elements after it are greater.
+     * @param elements An unsorted array of integers.
+     * @param leftIdx The left index of the partition, upon which the algorithm is currently working on.
+     * @param rightIdx The right index of the partition, upon which the algorithm is currently working on.
+     * @param targetIdx The index (0 based, in the whole array) of the element to be found, within the partition.
+     */
+    private static void floydRivestSelect(int[] elements, int leftIdx, int rightIdx, int targetIdx){
+        while(rightIdx > leftIdx) {
+            if(rightIdx - leftIdx > FLOYD_RIVEST_SAMPLE_THRESHOLD) {
+                // recursively select the target element of a sample, so that it lands close to the final position
+                double n = rightIdx - leftIdx + 1;
+                double i = targetIdx - leftIdx + 1;
+                double z = Math.log(n);
+                double sampleSize = 0.5 * Math.exp(2 * z / 3);
+                double deviation = 0.5 * Math.sqrt(z * sampleSize * (n - sampleSize) / n) * Math.signum(i - n / 2);
+                int sampleLeftIdx = (int) Math.max(leftIdx, Math.floor(targetIdx - i * sampleSize / n + deviation));
+                int sampleRightIdx = (int) Math.min(rightIdx, Math.floor(targetIdx + (n - i) * sampleSize / n + deviation));
+                // draw the sample at random from the whole partition (into the sample's positions), the elements around
+                // the target index don't represent the partition when the input is ordered, as the median-of-3 killer
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for(int sampleIdx = sampleLeftIdx ; sampleIdx <= sampleRightIdx ; sampleIdx++)
+                    swap(elements, sampleIdx, leftIdx + random.nextInt(rightIdx - leftIdx + 1));
+                floydRivestSelect(elements, sampleLeftIdx, sampleRightIdx, targetIdx);
+            }
+
+            // partition around the element at the target index (Hoare's scheme, with sentinels at both ends)
+            int pivot = elements[targetIdx];
+            int i = leftIdx, j = rightIdx;
+            swap(elements, leftIdx, targetIdx);
+            if(less(pivot, elements[rightIdx]))
+                swap(elements, rightIdx, leftIdx);
+            while(i < j) {
+                swap(elements, i, j);
+                i++;
+                j--;
+                while(less(elements[i], pivot))
+                    i++;
+                while(less(pivot, elements[j]))
+                    j--;
+            }
+            if(equal(elements[leftIdx], pivot))
+                swap(elements, leftIdx, j);
+            else {
+                j++;
+                swap(elements, j, rightIdx);
+            }
+
+            // j is the pivot's final index, continue with the side of the partition that has the target index
+            if(j <= targetIdx)
+                leftIdx = j + 1;
+            if(targetIdx <= j)
+                rightIdx = j - 1;
+        }
+    }
+
+    // --------------------------- Kth Element Selection: Parallel Approach ---------------------------
+    /** Partitions with fewer elements than this are finished by the sequential randomized approach. */
+    private static final int PARALLEL_SELECT_CUTOFF = 1 << 16;
+    /** The minimum number of elements counted and scattered by a single task. */
+    private static final int PARALLEL_MIN_BLOCK_SIZE = 1 << 14;
+
+    /**
+     * This function employs a parallel approach to find the kth smallest element in an array, using the common
+     * fork/join pool. See parallelApproach(elements, k, threads).
+     * @param elements An unsorted array of integers.
+     * @param k The rank of the element to be retrieved, 1 based ranking.
+     * @return The kth smallest element (element whose rank is k) in the given unsorted array.
+     */
+    public static int parallelApproach(int[] elements, int k){
+        return parallelSelect(elements, k, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * This function employs a parallel approach to find the kth smallest element in an array. While the current
+     * partition is large, it is partitioned around a random pivot (the median of 3 random elements) in 2 parallel
+     * passes over blocks of the partition:
+     *  1. Each block counts its elements that are smaller than and greater than the pivot, and the prefix sums of
+     *     these counts give every block the positions of its elements in the partitioned order.
+     *  2. Each block scatters its elements to their positions in a scratch buffer, which is then copied back.
+     * Then, like the randomized approach, only the side of the pivot that has the kth element is kept, and small
+     * partitions are finished sequentially.
+     * @param elements An unsorted array of integers.
+     * @param k The rank of the element to be retrieved, 1 based ranking.
+     * @param threads The number of threads to be used (a ForkJoinPool of this size is created for the call).
+     * @return The kth smallest element (element whose rank is k) in the given unsorted array.
+     */
+    public static int parallelApproach(int[] elements, int k, int threads){
+        if(threads < 1)
+            throw new RuntimeException("The number of threads must be positive.");
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(() -> parallelSelect(elements, k, threads)).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * The method, that will be delegated to from the public method parallelApproach(), it runs the parallel passes
+     * on the pool of the calling task (or on the common pool when not called from a pool).
+     * @param elements An unsorted array of integers.
+     * @param k The rank of the element to be retrieved, 1 based ranking.
+     * @param parallelism The number of threads of the pool, used to size the blocks.
+     * @return The element's (of rank k) value.
+     */
+    private static int parallelSelect(int[] elements, int k, int parallelism){
+        int leftIdx = 0, rightIdx = elements.length - 1;
+        int[] scratch = null;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while(rightIdx - leftIdx + 1 >= PARALLEL_SELECT_CUTOFF) {
+            if(scratch == null)
+                scratch = new int[elements.length];
+            int size = rightIdx - leftIdx + 1;
+            int pivot = elements[getMedianOf3Idx(elements, leftIdx + random.nextInt(size),
+                    leftIdx + random.nextInt(size), leftIdx + random.nextInt(size))];
+
+            // pass 1: count the smaller and the greater elements of each block
+            int blockSize = Math.max(PARALLEL_MIN_BLOCK_SIZE, size / (4 * parallelism) + 1);
+            int numberOfBlocks = (size + blockSize - 1) / blockSize;
+            int[] smallerCounts = new int[numberOfBlocks], greaterCounts = new int[numberOfBlocks];
+            int blocksLeftIdx = leftIdx, blocksRightIdx = rightIdx;
+            IntStream.range(0, numberOfBlocks).parallel().forEach(block -> {
+                int from = blocksLeftIdx + block * blockSize, to = Math.min(blocksRightIdx + 1, from + blockSize);
+                int smaller = 0, greater = 0;
+                for(int i = from ; i < to ; i++) {
+                    if(less(elements[i], pivot))
+                        smaller++;
+                    else if(less(pivot, elements[i]))
+                        greater++;
+                }
+                smallerCounts[block] = smaller;
+                greaterCounts[block] = greater;
+            });
+
+            // prefix sums, the start of each block's elements in the smaller and the greater parts
+            int totalSmaller = 0, totalGreater = 0;
+            for(int block = 0 ; block < numberOfBlocks ; block++) {
+                int smaller = smallerCounts[block], greater = greaterCounts[block];
+                smallerCounts[block] = totalSmaller;
+                greaterCounts[block] = totalGreater;
+                totalSmaller += smaller;
+                totalGreater += greater;
+            }
+            int totalEqual = size - totalSmaller - totalGreater;
+            int greaterStartIdx = leftIdx + totalSmaller + totalEqual;
+
+            // pass 2: scatter the elements of each block to the scratch buffer, then copy them back
+            int[] buffer = scratch;
+            IntStream.range(0, numberOfBlocks).parallel().forEach(block -> {
+                int from = blocksLeftIdx + block * blockSize, to = Math.min(blocksRightIdx + 1, from + blockSize);
+                int smallerIdx = blocksLeftIdx + smallerCounts[block];
+                int greaterIdx = greaterStartIdx + greaterCounts[block];
+                for(int i = from ; i < to ; i++) {
+                    int element = elements[i];
+                    if(less(element, pivot))
+                        buffer[smallerIdx++] = element;
+                    else if(less(pivot, element))
+                        buffer[greaterIdx++] = element;
+                }
+            });
+            Arrays.fill(scratch, leftIdx + totalSmaller, leftIdx + totalSmaller + totalEqual, pivot);
+            IntStream.range(0, numberOfBlocks).parallel().forEach(block -> {
+                int from = blocksLeftIdx + block * blockSize, to = Math.min(blocksRightIdx + 1, from + blockSize);
+                System.arraycopy(buffer, from, elements, from, to - from);
+            });
+
+            // continue with the side of the pivot that has the kth element
+            if(k <= totalSmaller)
+                rightIdx = leftIdx + totalSmaller - 1;
+            else if(k <= totalSmaller + totalEqual)
+                return pivot;
+            else {
+                leftIdx += totalSmaller + totalEqual;
+                k -= totalSmaller + totalEqual;
+            }
+        }
+        return randomSelect(elements, leftIdx, rightIdx, k, random);
+    }
+
+    // --------------------------- Kth Element Selection: Multiple Ranks ---------------------------
+    /**
+     * This function finds the elements of several ranks at once (multiselect), such as a set of quantiles. Like the
+     * randomized approach, it partitions around random pivots, but it keeps every side of a pivot that has one of
+     * the requested ranks, so each partitioning step serves all the ranks in its partition at once, and the
+     * expected running time is O(n log m) for m distinct ranks, instead of O(n m) for m separate selections.
+     * @param elements An unsorted array of integers.
+     * @param ks The ranks of the elements to be retrieved, 1 based ranking, in any order (repetitions are allowed).
+     * @return The elements whose ranks are ks, in the order of ks.
+     * @throws RuntimeException if a rank is out of the range [1, elements.length].
+     */
+    public static int[] selectMany(int[] elements, int[] ks){
+        int[] ranks = ks.clone();
+        Arrays.sort(ranks);
+        if(ranks.length == 0)
+            return new int[0];
+        if(ranks[0] < 1 || ranks[ranks.length - 1] > elements.length)
+            throw new RuntimeException("Ranks must be in the range [1, " + elements.length + "].");
+
+        // each selected element ends up at the index of its rank, as if the array was sorted
+        multiSelect(elements, 0, elements.length - 1, ranks, 0, ranks.length - 1, ThreadLocalRandom.current());
+        int[] selected = new int[ks.length];
+        for(int i = 0 ; i < ks.length ; i++)
+            selected[i] = elements[ks[i] - 1];
+        return selected;
+    }
+
+    /**
+     * Rearranges a partition of the array, such that the elements of the given ranks are at the indices they would
+     * have if the array was sorted.
+     * @param elements An unsorted array of integers.
+     * @param leftIdx The left index of the partition, upon which the algorithm is currently working on.
+     * @param rightIdx The right index of the partition, upon which the algorithm is currently working on.
+     * @param ranks The sorted ranks (1 based, in the whole array).
+     * @param fromIdx The index of the first rank that falls in the partition.
+     * @param toIdx The index of the last rank that falls in the partition.
+     * @param random The random generator of the pivots.
+     */
+    private static void multiSelect(int[] elements, int leftIdx, int rightIdx, int[] ranks, int fromIdx, int toIdx,
+                                    RandomGenerator random){
+        while(fromIdx <= toIdx) {
+            if(rightIdx - leftIdx + 1 <= INSERTION_SORT_THRESHOLD) {
+                insertionSort(elements, leftIdx, rightIdx);
+                return;
+            }
+            if(fromIdx == toIdx || ranks[fromIdx] == ranks[toIdx]) {       // a single rank is left
+                randomSelect(elements, leftIdx, rightIdx, ranks[fromIdx] - leftIdx, random);
+                return;
+            }
+
+            long pivotRange = randomPartition(elements, leftIdx, rightIdx, random);
+            int pivotFromIdx = rangeStartOf(pivotRange), pivotToIdx = rangeEndOf(pivotRange);
+            // split the ranks into the ones before the pivot, [fromIdx, lowIdx), and after it, [highIdx, toIdx]
+            int lowIdx = fromIdx;
+            while(lowIdx <= toIdx && ranks[lowIdx] - 1 < pivotFromIdx)
+                lowIdx++;
+            int highIdx = lowIdx;
+            while(highIdx <= toIdx && ranks[highIdx] - 1 <= pivotToIdx)
+                highIdx++;
+
+            // recurse into the smaller side, and continue with the other, to bound the depth of the recursion
+            if(pivotFromIdx - leftIdx < rightIdx - pivotToIdx) {
+                multiSelect(elements, leftIdx, pivotFromIdx - 1, ranks, fromIdx, lowIdx - 1, random);
+                leftIdx = pivotToIdx + 1;
+                fromIdx = highIdx;
+            } else {
+                multiSelect(elements, pivotToIdx + 1, rightIdx, ranks, highIdx, toIdx, random);
+                rightIdx = pivotFromIdx - 1;
+                toIdx = lowIdx - 1;
+            }
+        }
+    }
+
+    // --------------------------- Kth Element Selection: Streaming Approach ---------------------------
+    /**
+     * This function finds the exact kth smallest element of a stream that doesn't have to fit in memory, in 2
+     * passes over the stream. See streamingApproach(elements, k, sketch), the sketch is built by the first pass,
+     * in parallel, each thread sketching a part of the stream before the sketches are merged.
+     * @param elements A supplier of the stream of elements, called once per pass, it has to supply the same
+     *                 elements every time (in any order).
+     * @param k The rank of the element to be retrieved, 1 based ranking.
+     * @return The kth smallest element (element whose rank is k) in the stream.
+     */
+    public static int streamingApproach(Supplier<IntStream> elements, long k){
+        QuantileSketch sketch = elements.get().parallel().collect(QuantileSketch::new, QuantileSketch::update, QuantileSketch::merge);
+        return streamingApproach(elements, k, sketch);
+    }
+
+    /**
+     * This function finds the exact kth smallest element of a stream, using a quantile sketch of the stream to
+     * bound the memory. The sketch gives 2 values whose ranks bracket k (up to the sketch's rank error), then a
+     * pass over the stream counts the elements below the lower value, and buffers only the candidates between the
+     * 2 values, among which the kth element is found by the randomized approach. If the kth element turns out to
+     * be outside the bounds (the sketch's error exceeded its estimate), the bounds are widened and the pass is
+     * repeated.
+     * @param elements A supplier of the stream of elements, called once per pass, it has to supply the same
+     *                 elements every time (in any order).
+     * @param k The rank of the element to be retrieved, 1 based ranking.
+     * @param sketch A sketch of the stream.
+     * @return The kth smallest element (element whose rank is k) in the stream.
+     * @throws RuntimeException if k is out of the range [1, sketch.count()], or if the candidates don't fit in an array.
+     */
+    public static int streamingApproach(Supplier<IntStream> elements, long k, QuantileSketch sketch){
+        long count = sketch.count();
+        if(k < 1 || k > count)
+            throw new RuntimeException("The rank must be in the range [1, " + count + "].");
+        long margin = Math.max(1, 2 * sketch.rankError());
+        while(true) {
+            int lowerBound = k - margin <= 1 ? Integer.MIN_VALUE : sketch.kthSmallest(k - margin);
+            int upperBound = k + margin >= count ? Integer.MAX_VALUE : sketch.kthSmallest(k + margin);
+            CandidateBuffer candidates = new CandidateBuffer(lowerBound, upperBound);
+            elements.get().sequential().forEach(candidates);
+            if(candidates.below < k && k <= candidates.below + candidates.size)
+                return randomizedApproach(Arrays.copyOf(candidates.elements, candidates.size), (int) (k - candidates.below));
+            margin *= 2;
+        }
+    }
+
+    /**
+     * Counts the elements of a stream that are below a lower bound, and buffers the ones between the lower and
+     * upper bounds (inclusive), in a growable primitive array.
+     */
+    private static class CandidateBuffer implements IntConsumer {
+        private final int lowerBound, upperBound;
+        private int[] elements = new int[1024];
+        private int size;
+        private long below;
+
+        CandidateBuffer(int lowerBound, int upperBound){
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+        }
+
+        @Override
+        public void accept(int element){
+            if(element < lowerBound)
+                below++;
+            else if(element <= upperBound) {
+                if(size == elements.length) {
+                    if(size == Integer.MAX_VALUE - 8)
+                        throw new RuntimeException("The candidates of the kth element don't fit in an array.");
+                    elements = Arrays.copyOf(elements, (int) Math.min(Integer.MAX_VALUE - 8, 2L * size));
+                }
+                elements[size++] = element;
+            }
+        }
+    }
+
+    // --------------------------- Kth Element Selection: Arrays of longs and doubles ---------------------------
+    // The randomized and deterministic approaches for the arrays of longs and doubles have their own copies of the
+    // engine of the integers, rather than sharing the view-based one: a call through SelectionView is megamorphic
+    // once argselect and the buffers have run, so compare() and swap() are no longer inlined.
+
+    /**
+     * Same as randomizedApproach(int[], k), for an array of longs.
+     * @param elements An unsorted array of longs.
+     * @param k The rank of the element to be retrieved, 1 based ranking.
+     * @return The kth smallest element (element whose rank is k) in the given unsorted array.
+     */
+    public static long randomizedApproach(long[] elements, int k){
+        return randomSelect(elements, 0, elements.length - 1, k, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Same as randomizedApproach(int[], k), for an array of doubles, ordered as by Double.compare(): -0.0 is less
+     * than 0.0, and NaN is greater than every other value (so the NaNs have the greatest ranks).
+     * @param elements An unsorted array of doubles.
+     * @param k The rank of the element to be retrieved, 1 based ranking.
+     * @return The kth smallest element (element whose rank is k) in the given unsorted array.
+     */
+    public static double randomizedApproach(double[] elements, int k){
+        return randomSelect(elements, 0, elements.length - 1, k, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Same as deterministicApproach(int[], k), for an array of longs.
+     * @param elements An unsorted array of longs.
+     * @param k The rank of the element to be retrieved, 1 based ranking.
+     * @return The kth smallest element (element whose rank is k) in the given unsorted array.
+     */
+    public static long deterministicApproach(long[] elements, int k){
+        return deterministicSelect(elements, 0, elements.length - 1, k);
+    }
+
+    /**
+     * Same as deterministicApproach(int[], k), for an array of doubles, ordered as by Double.compare() (see
+     * randomizedApproach(double[], k)).
+     * @param elements An unsorted array of doubles.
+     * @param k The rank of the element to be retrieved, 1 based ranking.
+     * @return The kth smallest element (element whose rank is k) in the given unsorted array.
+     */
+    public static double deterministicApproach(double[] elements, int k){
+        return deterministicSelect(elements, 0, elements.length - 1, k);
+    }
+
+    /**
+     * Same as randomSelect(int[], leftIdx, rightIdx, k, random), for an array of longs.
+     */
+    private static long randomSelect(long[] elements, int leftIdx, int rightIdx, int k, RandomGenerator random){
+        while(leftIdx != rightIdx) {
+            swap(elements, leftIdx, leftIdx + random.nextInt(rightIdx - leftIdx + 1));
+            long pivotRange = partition(elements, leftIdx, rightIdx);
+            int pivotFromRank = rangeStartOf(pivotRange) - leftIdx + 1;
+            int pivotToRank = rangeEndOf(pivotRange) - leftIdx + 1;
+            if(k < pivotFromRank)
+                rightIdx = rangeStartOf(pivotRange) - 1;
+            else if(k > pivotToRank) {
+                leftIdx = rangeEndOf(pivotRange) + 1;
+                k -= pivotToRank;
+            } else
+                return elements[leftIdx + k - 1];
+        }
+        return elements[leftIdx];
+    }
+
+    /**
+     * Same as deterministicSelect(int[], leftIdx, rightIdx, k), for an array of longs.
+     */
+    private static long deterministicSelect(long[] elements, int leftIdx, int rightIdx, int k){
+        int[] frames = DETERMINISTIC_FRAMES.get();
+        int top = 0;
+        frames[0] = leftIdx;
+        frames[1] = rightIdx;
+        frames[2] = k;
+        boolean nestedSelectionDone = false;
+        while(true) {
+            int left = frames[3 * top], right = frames[3 * top + 1], rank = frames[3 * top + 2];
+            int resultIdx;
+            if(nestedSelectionDone) {
+                nestedSelectionDone = false;
+                int numberOfGroups = getNumberOfGroups(left, right);
+                swap(elements, left, left + (numberOfGroups + 1) / 2 - 1);
+
+                long pivotRange = partition(elements, left, right);
+                int pivotFromRank = rangeStartOf(pivotRange) - left + 1;
+                int pivotToRank = rangeEndOf(pivotRange) - left + 1;
+                if(rank < pivotFromRank) {
+                    frames[3 * top + 1] = rangeStartOf(pivotRange) - 1;
+                    continue;
+                }
+                if(rank > pivotToRank) {
+                    frames[3 * top] = rangeEndOf(pivotRange) + 1;
+                    frames[3 * top + 2] = rank - pivotToRank;
+                    continue;
+                }
+                resultIdx = left + rank - 1;
+            } else if(right - left + 1 <= INSERTION_SORT_THRESHOLD) {
+                insertionSort(elements, left, right);
+                resultIdx = left + rank - 1;
+            } else {
+                int numberOfGroups = moveGroupMediansToFront(elements, left, right);
+                top++;
+                frames[3 * top] = left;
+                frames[3 * top + 1] = left + numberOfGroups - 1;
+                frames[3 * top + 2] = (numberOfGroups + 1) / 2;
+                continue;
+            }
+
+            if(top == 0)
+                return elements[resultIdx];
+            top--;
+            nestedSelectionDone = true;
+        }
+    }
+
+    /**
+     * Same as moveGroupMediansToFront(int[], leftIdx, rightIdx), for an array of longs.
+     */
+    private static int moveGroupMediansToFront(long[] elements, int leftIdx, int rightIdx){
+        int group = 0;
+        for(int i = leftIdx ; i <= rightIdx ; i += 5, group++) {
+            int medianIdx;
+            if(i + 4 <= rightIdx) {
+                sort5(elements, i);
+                medianIdx = i + 2;
+            } else {
+                insertionSort(elements, i, rightIdx);
+                medianIdx = i + (rightIdx - i) / 2;
+            }
+            swap(elements, leftIdx + group, medianIdx);
+        }
+        return group;
+    }
+
+    private static void sort5(long[] elements, int i){
+        compareExchange(elements, i, i + 1);
+        compareExchange(elements, i + 3, i + 4);
+        compareExchange(elements, i + 2, i + 4);
+        compareExchange(elements, i + 2, i + 3);
+        compareExchange(elements, i + 1, i + 4);
+        compareExchange(elements, i, i + 3);
+        compareExchange(elements, i, i + 2);
+        compareExchange(elements, i + 1, i + 3);
+        compareExchange(elements, i + 1, i + 2);
+    }
+
+    private static void compareExchange(long[] elements, int i, int j){
+        long a = elements[i], b = elements[j];
+        countComparisons(1);
+        elements[i] = Math.min(a, b);
+        elements[j] = Math.max(a, b);
+    }
+
+    private static void insertionSort(long[] elements, int leftIdx, int rightIdx){
+        for(int i = leftIdx + 1 ; i <= rightIdx ; i++) {
+            long element = elements[i];
+            int j = i - 1;
+            for( ; j >= leftIdx && less(element, elements[j]) ; j--)
+                elements[j + 1] = elements[j];
+            elements[j + 1] = element;
+        }
+    }
+
+    /**
+     * Same as partition(int[], leftIdx, rightIdx), for an array of longs.
+     */
+    private static long partition(long[] elements, int leftIdx, int rightIdx){
+        long pivot = elements[leftIdx];
+        int i = leftIdx, j = rightIdx + 1;
+        int p = leftIdx, q = rightIdx + 1;
+        while(true) {
+            while(less(elements[++i], pivot))
+                if(i == rightIdx)
+                    break;
+            while(less(pivot, elements[--j]))
+                if(j == leftIdx)
+                    break;
+            if(i == j && equal(elements[i], pivot))
+                swap(elements, ++p, i);
+            if(i >= j)
+                break;
+            swap(elements, i, j);
+            if(equal(elements[i], pivot))
+                swap(elements, ++p, i);
+            if(equal(elements[j], pivot))
+                swap(elements, --q, j);
+        }
+        i = j + 1;
+        for(int l = leftIdx ; l <= p ; l++)
+            swap(elements, l, j--);
+        for(int l = rightIdx ; l >= q ; l--)
+            swap(elements, l, i++);
+        return packRange(j + 1, i - 1);
+    }
+
+    /**
+     * Same as randomSelect(int[], leftIdx, rightIdx, k, random), for an array of doubles.
+     */
+    private static double randomSelect(double[] elements, int leftIdx, int rightIdx, int k, RandomGenerator random){
+        while(leftIdx != rightIdx) {
+            swap(elements, leftIdx, leftIdx + random.nextInt(rightIdx - leftIdx + 1));
+            long pivotRange = partition(elements, leftIdx, rightIdx);
+            int pivotFromRank = rangeStartOf(pivotRange) - leftIdx + 1;
+            int pivotToRank = rangeEndOf(pivotRange) - leftIdx + 1;
+            if(k < pivotFromRank)
+                rightIdx = rangeStartOf(pivotRange) - 1;
+            else if(k > pivotToRank) {
+                leftIdx = rangeEndOf(pivotRange) + 1;
+                k -= pivotToRank;
+            } else
+                return elements[leftIdx + k - 1];
+        }
+        return elements[leftIdx];
+    }
+
+    /**
+     * Same as deterministicSelect(int[], leftIdx, rightIdx, k), for an array of doubles.
+     */
+    private static double deterministicSelect(double[] elements, int leftIdx, int rightIdx, int k){
+        int[] frames = DETERMINISTIC_FRAMES.get();
+        int top = 0;
+        frames[0] = leftIdx;
+        frames[1] = rightIdx;
+        frames[2] = k;
+        boolean nestedSelectionDone = false;
+        while(true) {
+            int left = frames[3 * top], right = frames[3 * top + 1], rank = frames[3 * top + 2];
+            int resultIdx;
+            if(nestedSelectionDone) {
+                nestedSelectionDone = false;
+                int numberOfGroups = getNumberOfGroups(left, right);
+                swap(elements, left, left + (numberOfGroups + 1) / 2 - 1);
+
+                long pivotRange = partition(elements, left, right);
+                int pivotFromRank = rangeStartOf(pivotRange) - left + 1;
+                int pivotToRank = rangeEndOf(pivotRange) - left + 1;
+                if(rank < pivotFromRank) {
+                    frames[3 * top + 1] = rangeStartOf(pivotRange) - 1;
+                    continue;
+                }
+                if(rank > pivotToRank) {
+                    frames[3 * top] = rangeEndOf(pivotRange) + 1;
+                    frames[3 * top + 2] = rank - pivotToRank;
+                    continue;
+                }
+                resultIdx = left + rank - 1;
+            } else if(right - left + 1 <= INSERTION_SORT_THRESHOLD) {
+                insertionSort(elements, left, right);
+                resultIdx = left + rank - 1;
+            } else {
+                int numberOfGroups = moveGroupMediansToFront(elements, left, right);
+                top++;
+                frames[3 * top] = left;
+                frames[3 * top + 1] = left + numberOfGroups - 1;
+                frames[3 * top + 2] = (numberOfGroups + 1) / 2;
+                continue;
+            }
+
+            if(top == 0)
+                return elements[resultIdx];
+            top--;
+            nestedSelectionDone = true;
+        }
+    }
+
+    /**
+     * Same as moveGroupMediansToFront(int[], leftIdx, rightIdx), for an array of doubles.
+     */
+    private static int moveGroupMediansToFront(double[] elements, int leftIdx, int rightIdx){
+        int group = 0;
+        for(int i = leftIdx ; i <= rightIdx ; i += 5, group++) {
+            int medianIdx;
+            if(i + 4 <= rightIdx) {
+                sort5(elements, i);
+                medianIdx = i + 2;
+            } else {
+                insertionSort(elements, i, rightIdx);
+                medianIdx = i + (rightIdx - i) / 2;
+            }
+            swap(elements, leftIdx + group, medianIdx);
+        }
+        return group;
+    }
+
+    private static void sort5(double[] elements, int i){
+        compareExchange(elements, i, i + 1);
+        compareExchange(elements, i + 3, i + 4);
+        compareExchange(elements, i + 2, i + 4);
+        compareExchange(elements, i + 2, i + 3);
+        compareExchange(elements, i + 1, i + 4);
+        compareExchange(elements, i, i + 3);
+        compareExchange(elements, i, i + 2);
+        compareExchange(elements, i + 1, i + 3);
+        compareExchange(elements, i + 1, i + 2);
+    }
+
+    /**
+     * Same as compareExchange(int[], i, j), for an array of doubles. It branches, since Math.min() and Math.max() do
+     * not order -0.0 and NaN as Double.compare() does.
+     */
+    private static void compareExchange(double[] elements, int i, int j){
+        if(less(elements[j], elements[i]))
+            swap(elements, i, j);
+    }
+
+    private static void insertionSort(double[] elements, int leftIdx, int rightIdx){
+        for(int i = leftIdx + 1 ; i <= rightIdx ; i++) {
+            double element = elements[i];
+            int j = i - 1;
+            for( ; j >= leftIdx && less(element, elements[j]) ; j--)
+                elements[j + 1] = elements[j];
+            elements[j + 1] = element;
+        }
+    }
+
+    /**
+     * Same as partition(int[], leftIdx, rightIdx), for an array of doubles.
+     */
+    private static long partition(double[] elements, int leftIdx, int rightIdx){
+        double pivot = elements[leftIdx];
+        int i = leftIdx, j = rightIdx + 1;
+        int p = leftIdx, q = rightIdx + 1;
+        while(true) {
+            while(less(elements[++i], pivot))
+                if(i == rightIdx)
+                    break;
+            while(less(pivot, elements[--j]))
+                if(j == leftIdx)
+                    break;
+            if(i == j && equal(elements[i], pivot))
+                swap(elements, ++p, i);
+            if(i >= j)
+                break;
+            swap(elements, i, j);
+            if(equal(elements[i], pivot))
+                swap(elements, ++p, i);
+            if(equal(elements[j], pivot))
+                swap(elements, --q, j);
+        }
+        i = j + 1;
+        for(int l = leftIdx ; l <= p ; l++)
+            swap(elements, l, j--);
+        for(int l = rightIdx ; l >= q ; l--)
+            swap(elements, l, i++);
+        return packRange(j + 1, i - 1);
+    }
+
+    // --------------------------- Kth Element Selection: Views (argselect, buffers) ---------------------------
+    /**
+     * Finds the index of the kth smallest key (argselect), by the randomized approach, permuting the indices instead
+     * of the keys, for example to select a record by one of its fields, kept in a separate array.
+     * @param indices The indices of the keys to select from (such as 0 to keys.length - 1), they are rearranged like
+     *                the elements of randomizedApproach(int[], k), by their keys.
+     * @param keys The keys, they are not modified.
+     * @param k The rank of the key to be found, among the keys of the indices, 1 based ranking.
+     * @return The index of the kth smallest key, which is also moved to indices[k - 1].
+     */
+    public static int argSelect(int[] indices, int[] keys, int k){
+        randomizedApproach(SelectionView.byKeys(indices, keys), k);
+        return indices[k - 1];
+    }
+
+    /**
+     * Same as argSelect(indices, int[] keys, k), for keys that are longs.
+     */
+    public static int argSelect(int[] indices, long[] keys, int k){
+        randomizedApproach(SelectionView.byKeys(indices, keys), k);
+        return indices[k - 1];
+    }
+
+    /**
+     * Same as argSelect(indices, int[] keys, k), for keys that are doubles, ordered as by Double.compare().
+     */
+    public static int argSelect(int[] indices, double[] keys, int k){
+        randomizedApproach(SelectionView.byKeys(indices, keys), k);
+        return indices[k - 1];
+    }
+
+    /**
+     * Same as randomizedApproach(int[], k), for the remaining elements of a buffer (from its position to its limit),
+     * which are rearranged in place, so a direct buffer, or a buffer over a memory-mapped file, is selected from
+     * without being copied onto the heap.
+     * @param elements An unsorted buffer of integers.
+     * @param k The rank of the element to be retrieved, 1 based ranking.
+     * @return The kth smallest element (element whose rank is k) among the remaining elements of the buffer.
+     */
+    public static int randomizedApproach(IntBuffer elements, int k){
+        randomizedApproach(SelectionView.of(elements), k);
+        return elements.get(elements.position() + k - 1);
+    }
+
+    /**
+     * Same as deterministicApproach(int[], k), for the remaining elements of a buffer (see
+     * randomizedApproach(IntBuffer, k)).
+     * @param elements An unsorted buffer of integers.
+     * @param k The rank of the element to be retrieved, 1 based ranking.
+     * @return The kth smallest element (element whose rank is k) among the remaining elements of the buffer.
+     */
+    public static int deterministicApproach(IntBuffer elements, int k){
+        deterministicApproach(SelectionView.of(elements), k);
+        return elements.get(elements.position() + k - 1);
+    }
+
+    /**
+     * The randomized approach over a view, the engine shared by argselect and the buffers.
+     * It rearranges the view, such that the kth smallest element is at the index k - 1, the elements before it are
+     * not greater, and the elements after it are not smaller, as if the view was sorted.
+     * Unlike the arrays of primitives, which have their own engines, the elements are compared and swapped through the
+     * view (by their indices), so the pivot stays at the left index of a partition, instead of in a local variable.
+     * @param view The elements.
+     * @param k The rank of the element to be found, 1 based ranking.
+     */
+    public static void randomizedApproach(SelectionView view, int k){
+        RandomGenerator random = ThreadLocalRandom.current();
+        int leftIdx = 0, rightIdx = view.size() - 1;
+        while(rightIdx - leftIdx + 1 > INSERTION_SORT_THRESHOLD) {
+            view.swap(leftIdx, leftIdx + random.nextInt(rightIdx - leftIdx + 1));
+            long pivotRange = partition(view, leftIdx, rightIdx);
+            int pivotFromRank = rangeStartOf(pivotRange) - leftIdx + 1;
+            int pivotToRank = rangeEndOf(pivotRange) - leftIdx + 1;
+            if(k < pivotFromRank)
+                rightIdx = rangeStartOf(pivotRange) - 1;
+            else if(k > pivotToRank) {
+                leftIdx = rangeEndOf(pivotRange) + 1;
+                k -= pivotToRank;
+            } else
+                return;
+        }
+        insertionSort(view, leftIdx, rightIdx);
+    }
+
+    /**
+     * The median of medians algorithm over a view (see randomizedApproach(view, k)), with the same iterative
+     * structure and stack of frames as deterministicSelect().
+     * @param view The elements.
+     * @param k The rank of the element to be found, 1 based ranking, it is moved to the index k - 1.
+     */
+    public static void deterministicApproach(SelectionView view, int k){
+        int[] frames = DETERMINISTIC_FRAMES.get();
+        int top = 0;
+        frames[0] = 0;
+        frames[1] = view.size() - 1;
+        frames[2] = k;
+        boolean nestedSelectionDone = false;
+        while(true) {
+            int left = frames[3 * top], right = frames[3 * top + 1], rank = frames[3 * top + 2];
+            if(nestedSelectionDone) {
+                nestedSelectionDone = false;
+                int numberOfGroups = getNumberOfGroups(left, right);
+                view.swap(left, left + (numberOfGroups + 1) / 2 - 1);
+
+                long pivotRange = partition(view, left, right);
+                int pivotFromRank = rangeStartOf(pivotRange) - left + 1;
+                int pivotToRank = rangeEndOf(pivotRange) - left + 1;
+                if(rank < pivotFromRank) {
+                    frames[3 * top + 1] = rangeStartOf(pivotRange) - 1;
+                    continue;
+                }
+                if(rank > pivotToRank) {
+                    frames[3 * top] = rangeEndOf(pivotRange) + 1;
+                    frames[3 * top + 2] = rank - pivotToRank;
+                    continue;
+                }
+            } else if(right - left + 1 <= INSERTION_SORT_THRESHOLD)
+                insertionSort(view, left, right);
+            else {
+                int numberOfGroups = moveGroupMediansToFront(view, left, right);
+                top++;
+                frames[3 * top] = left;
+                frames[3 * top + 1] = left + numberOfGroups - 1;
+                frames[3 * top + 2] = (numberOfGroups + 1) / 2;
+                continue;
+            }
+
+            if(top == 0)
+                return;
+            top--;
+            nestedSelectionDone = true;
+        }
+    }
+
+    /**
+     * Same as moveGroupMediansToFront(int[], leftIdx, rightIdx), over a view.
+     */
+    private static int moveGroupMediansToFront(SelectionView view, int leftIdx, int rightIdx){
+        int group = 0;
+        for(int i = leftIdx ; i <= rightIdx ; i += 5, group++) {
+            int medianIdx;
+            if(i + 4 <= rightIdx) {
+                compareExchange(view, i, i + 1);          // the sorting network of sort5()
+                compareExchange(view, i + 3, i + 4);
+                compareExchange(view, i + 2, i + 4);
+                compareExchange(view, i + 2, i + 3);
+                compareExchange(view, i + 1, i + 4);
+                compareExchange(view, i, i + 3);
+                compareExchange(view, i, i + 2);
+                compareExchange(view, i + 1, i + 3);
+                compareExchange(view, i + 1, i + 2);
+                medianIdx = i + 2;
+            } else {
+                insertionSort(view, i, rightIdx);
+                medianIdx = i + (rightIdx - i) / 2;
+            }
+            view.swap(leftIdx + group, medianIdx);
+        }
+        return group;
+    }
+
+    private static void compareExchange(SelectionView view, int i, int j){
+        if(compare(view, i, j) > 0)
+            view.swap(i, j);
+    }
+
+    private static void insertionSort(SelectionView view, int leftIdx, int rightIdx){
+        for(int i = leftIdx + 1 ; i <= rightIdx ; i++)
+            for(int j = i ; j > leftIdx && compare(view, j, j - 1) < 0 ; j--)
+                view.swap(j, j - 1);
+    }
+
+    /**
+     * Same as partition(int[], leftIdx, rightIdx), over a view. The pivot (the element at leftIdx) is compared by
+     * its index, it stays there until the elements equal to it are moved to the middle, since they are swapped to
+     * the indices after it.
+     */
+    private static long partition(SelectionView view, int leftIdx, int rightIdx){
+        int i = leftIdx, j = rightIdx + 1;
+        int p = leftIdx, q = rightIdx + 1;
+        while(true) {
+            while(compare(view, ++i, leftIdx) < 0)
+                if(i == rightIdx)
+                    break;
+            while(compare(view, leftIdx, --j) < 0)
+                if(j == leftIdx)
+                    break;
+            if(i == j && compare(view, i, leftIdx) == 0)
+                view.swap(++p, i);
+            if(i >= j)
+                break;
+            view.swap(i, j);
+            if(compare(view, i, leftIdx) == 0)
+                view.swap(++p, i);
+            if(compare(view, j, leftIdx) == 0)
+                view.swap(--q, j);
+        }
+        i = j + 1;
+        for(int l = leftIdx ; l <= p ; l++)
+            view.swap(l, j--);
+        for(int l = rightIdx ; l >= q ; l--)
+            view.swap(l, i++);
+        return packRange(j + 1, i - 1);
     }
 
     // --------------------------- Kth Element Selection: Naive Approach ---------------------------
@@ -172,7 +1265,7 @@ public class KthElementSelector {
     /**
      * This function employs a naive approach to find the kth smallest element in an array.
      * It sorts the array of elements
-     * @param elements An unsorted array of unique integers.
+     * @param elements An unsorted array of integers.
      * @param k The rank of the element to be retrieved, 1 based ranking.
      * @return The kth smallest element (element whose rank is k) in the given unsorted array.
      */
@@ -188,31 +1281,142 @@ public class KthElementSelector {
     /**
      * Normal partition() implementation, which uses the first element of the array as a pivot element.
      * And will also be utilized by other versions of partitioning methods, such as randomPartition() method.
-     * @param elements An unsorted array of unique integers.
+     * It is a three-way partition (Bentley-McIlroy): the elements equal to the pivot are gathered in the middle,
+     * between the smaller and the greater elements, so that they are all settled at once, and the selection never
+     * recurses into a run of equal elements, which keeps it linear on input with heavy duplicates. While scanning
+     * from both ends (as in Hoare's scheme), the elements equal to the pivot are swapped to the ends of the
+     * partition, and swapped to the middle at the end, so input without duplicates pays almost nothing for it.
+     * @param elements An unsorted array of integers, with at least 2 elements in the partition.
      * @param leftIdx The left index of the partition, upon which the algorithm is currently working on.
      * @param rightIdx The right index of the partition, upon which the algorithm is currently working on.
-     * @return The pivot's (the left boundary of the partition being processed) index, after being settled in its correct position.
+     * @return The range of indices [from, to] of the elements equal to the pivot (the left boundary of the
+     * partition being processed), after being settled in their correct positions, packed by packRange().
      */
-    private static int partition(int[] elements, int leftIdx, int rightIdx){
+    private static long partition(int[] elements, int leftIdx, int rightIdx){
         int pivot = elements[leftIdx];
-        int i = leftIdx;     // use this variable to keep track of the pivot correct position
-        for(int j = leftIdx + 1 ; j <= rightIdx ; j++) {
-            if (elements[j] <= pivot) {
-                // finding an element smaller than pivot, means that the pivot stored position should
-                // be incremented, as 1 more element will be stored before it.
-                i++;
-                swap(elements, i, j);
-                // now swap the element that is smaller than the pivot, to put it in the partition set which
-                // is smaller than the pivot (will be on the pivot's left).
-            }
+        int i = leftIdx, j = rightIdx + 1;
+        int p = leftIdx, q = rightIdx + 1;      // [leftIdx, p] and [q, rightIdx] hold the elements equal to the pivot
+        while(true) {
+            while(less(elements[++i], pivot))
+                if(i == rightIdx)
+                    break;
+            while(less(pivot, elements[--j]))
+                if(j == leftIdx)
+                    break;
+            if(i == j && equal(elements[i], pivot))
+                swap(elements, ++p, i);
+            if(i >= j)
+                break;
+            swap(elements, i, j);
+            if(equal(elements[i], pivot))
+                swap(elements, ++p, i);
+            if(equal(elements[j], pivot))
+                swap(elements, --q, j);
         }
-        swap(elements, i, leftIdx);
-        return i;
+        // now [p + 1, j] are smaller and [j + 1, q - 1] are greater, move the equal elements between them
+        i = j + 1;
+        for(int l = leftIdx ; l <= p ; l++)
+            swap(elements, l, j--);
+        for(int l = rightIdx ; l >= q ; l--)
+            swap(elements, l, i++);
+        return packRange(j + 1, i - 1);
+    }
+
+    /**
+     * Packs a range of indices [from, to] into a single long.
+     */
+    private static long packRange(int fromIdx, int toIdx){
+        return ((long) fromIdx << 32) | toIdx;
+    }
+
+    private static int rangeStartOf(long range){
+        return (int) (range >>> 32);
+    }
+
+    private static int rangeEndOf(long range){
+        return (int) range;
+    }
+
+    /**
+     * Compares 2 elements, counting the comparison when COUNT_COMPARISONS is set.
+     * @return Whether the element a is smaller than the element b.
+     */
+    private static boolean less(int a, int b){
+        if(COUNT_COMPARISONS)
+            COMPARISONS.increment();
+        return a < b;
+    }
+
+    /**
+     * Compares 2 elements, counting the comparison when COUNT_COMPARISONS is set.
+     * @return Whether the element a is equal to the element b.
+     */
+    private static boolean equal(int a, int b){
+        if(COUNT_COMPARISONS)
+            COMPARISONS.increment();
+        return a == b;
+    }
+
+    private static boolean less(long a, long b){
+        if(COUNT_COMPARISONS)
+            COMPARISONS.increment();
+        return a < b;
+    }
+
+    private static boolean equal(long a, long b){
+        if(COUNT_COMPARISONS)
+            COMPARISONS.increment();
+        return a == b;
+    }
+
+    /**
+     * Compares 2 doubles as Double.compare() does, counting the comparison when COUNT_COMPARISONS is set.
+     */
+    private static boolean less(double a, double b){
+        if(COUNT_COMPARISONS)
+            COMPARISONS.increment();
+        return Double.compare(a, b) < 0;
+    }
+
+    private static boolean equal(double a, double b){
+        if(COUNT_COMPARISONS)
+            COMPARISONS.increment();
+        return Double.compare(a, b) == 0;
+    }
+
+    /**
+     * Compares 2 elements of a view, counting the comparison when COUNT_COMPARISONS is set.
+     */
+    private static int compare(SelectionView view, int i, int j){
+        if(COUNT_COMPARISONS)
+            COMPARISONS.increment();
+        return view.compare(i, j);
+    }
+
+    /**
+     * Counts comparisons that are not made through less() or equal() (branch free ones), when COUNT_COMPARISONS is set.
+     */
+    private static void countComparisons(int count){
+        if(COUNT_COMPARISONS)
+            COMPARISONS.add(count);
+    }
+
+    /**
+     * @return The number of comparisons of elements made by the selections (of all the threads) since the last call
+     * to resetComparisons(), always 0 unless COUNT_COMPARISONS is set. The naive approach (Arrays.sort()) and
+     * the candidates of the streaming approach are not counted.
+     */
+    static long comparisons(){
+        return COMPARISONS.sum();
+    }
+
+    static void resetComparisons(){
+        COMPARISONS.reset();
     }
 
     /**
      * Provides the facility of swapping 2 elements, in an array of integers, taking the elements (to be swapped) indices.
-     * @param elements An unsorted array of unique integers.
+     * @param elements An unsorted array of integers.
      * @param i The index of the first element to be swapped.
      * @param j The index of the second element to be swapped.
      */
@@ -221,4 +1425,16 @@ public class KthElementSelector {
         elements[i] = elements[j];
         elements[j] = tempElement;
     }
+
+    private static void swap(long[] elements, int i, int j){
+        long tempElement = elements[i];
+        elements[i] = elements[j];
+        elements[j] = tempElement;
+    }
+
+    private static void swap(double[] elements, int i, int j){
+        double tempElement = elements[i];
+        elements[i] = elements[j];
+        elements[j] = tempElement;
+    }
 }
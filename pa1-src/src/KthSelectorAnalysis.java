@@ -1,6 +1,4 @@
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
 import org.junit.jupiter.params.provider.Arguments;
 import java.util.Random;
 
@@ -19,6 +17,20 @@ public class KthSelectorAnalysis {
         int apply(int[] elements, int k);
     }
 
+    /** The number of runs of each algorithm that are not measured, before the measured runs. */
+    private static final int WARMUP_SAMPLES = 3;
+
+    /** The names of the selector algorithms, the index of each name is its method code. */
+    static final String[] METHOD_NAMES = {"Naive", "Randomized", "Deterministic", "Introselect", "Floyd-Rivest", "Parallel"};
+    /** The seed of the inputs of the benchmarks (KthSelectorBenchmark and KthSelectorRegressionBenchmark), so that
+     *  every run measures the same arrays. */
+    static final long INPUT_SEED = 2024;
+    /** The unique values of the inputs of the benchmarks are in [-VALUES_RANGE, VALUES_RANGE). */
+    static final int VALUES_RANGE = 1_000_000_000;
+
+    /** Keeps the results of the selections of the benchmarks alive, so that the JIT can't eliminate them as dead code. */
+    static volatile int sink;
+
 
     /**
      * The main method to execute performance analysis for different scenarios.
@@ -36,19 +48,21 @@ public class KthSelectorAnalysis {
 
     /**
      * Display the performance results in a tabular form, to be easily copied to a Google sheet.
-     * @param performance The performance data to display.
+     * @param performance The performance data to display (average times, in microseconds).
      * @param initialSize The initial size for the array of elements.
      * @param sizeScalingFactor The size scaling factor, which will be multiplied by the size after each iteration.
      */
     private static void displayPerformance(long[][] performance, int initialSize, int sizeScalingFactor){
+        StringBuilder header = new StringBuilder("Size\t");
+        for(String methodName : METHOD_NAMES)
+            header.append(methodName).append("\t");
+        System.out.println(header);
         for(int i = 0 ; i < performance[0].length ; i++){
-            System.out.println(
-                    (int)(initialSize * Math.pow(sizeScalingFactor, i))
-                        + "\t"
-                        + performance[0][i] + "\t"
-                        + performance[1][i] + "\t"
-                        + performance[2][i] + "\t"
-            );
+            StringBuilder row = new StringBuilder();
+            row.append((int)(initialSize * Math.pow(sizeScalingFactor, i))).append("\t");
+            for(long[] methodPerformance : performance)
+                row.append(methodPerformance[i]).append("\t");
+            System.out.println(row);
         }
     }
 
@@ -59,17 +73,16 @@ public class KthSelectorAnalysis {
      * @param sizeScalingFactor The size scaling factor for the array of elements.
      * @param valuesRange The range of values for random data generation.
      * @param samplesPerSize The number of samples to run for each size.
-     * @return A 2D array containing performance data, where the 1st row represents the results for the naive approach
-     * and the data in the 2nd row represents the results of the randomized approach, and the third row
-     * contains the results of the deterministic approach.
+     * @return A 2D array containing performance data, where the row i represents the results of the approach whose
+     * method code is i (see METHOD_NAMES).
      */
     private static long[][] analyze(int initialSize, int maxSize, int sizeScalingFactor, int valuesRange, int samplesPerSize){
-        // 3 rows for the 3 approaches
+        // a row for each approach
         int sizesCount = (int) Math.floor(Math.log10(maxSize) / Math.log10(sizeScalingFactor)) + 1;
-        long[][] performanceAnalysis = new long[3][sizesCount];
+        long[][] performanceAnalysis = new long[METHOD_NAMES.length][sizesCount];
 
-        // methodCode represents Naive, Randomized and Deterministic approaches, respectively.
-        for(int methodCode = 0 ; methodCode < 3 ; methodCode++) {
+        // methodCode represents the approaches, in the order of METHOD_NAMES.
+        for(int methodCode = 0 ; methodCode < METHOD_NAMES.length ; methodCode++) {
             // Store the approach to be used in the current iteration (represented by the methodCode variable)
             SelectorAlgorithm tempAlg = getSelectorAlgorithm(methodCode);
             for (int size = initialSize; size <= maxSize; size *= sizeScalingFactor) {
@@ -84,23 +97,25 @@ public class KthSelectorAnalysis {
 
     /**
      * Run the selector algorithm multiple times on the same array and calculate the average time.
+     * The first WARMUP_SAMPLES runs are not measured, so that the algorithm is compiled by the JIT before it is timed.
+     * For detailed measurements (distributions, allocations, forked JVMs), see KthSelectorBenchmark.
      * @param alg The selector algorithm to run.
      * @param samplesPerSize The number of samples to run for each size.
      * @param args The arguments for the algorithm.
      * @param size The size of the array of elements.
-     * @return The average time taken to run the algorithm.
+     * @return The average time taken to run the algorithm, in microseconds.
      */
     private static long runMultipleSamples(SelectorAlgorithm alg, int samplesPerSize, Arguments args, int size){
-        long avgTime = 0;
-        for(int sample = 0 ; sample < samplesPerSize ; sample++){
+        long totalTime = 0;
+        for(int sample = -WARMUP_SAMPLES ; sample < samplesPerSize ; sample++){
             int[] tempCopy = Arrays.copyOf((int[])args.get()[0], size);
-            long startTime = System.currentTimeMillis();
+            long startTime = System.nanoTime();
             alg.apply(tempCopy, (int) args.get()[1]);
-            long finishTime = System.currentTimeMillis();
-            avgTime += (finishTime - startTime);
+            long finishTime = System.nanoTime();
+            if(sample >= 0)
+                totalTime += (finishTime - startTime);
         }
-        avgTime /= samplesPerSize;
-        return avgTime;
+        return totalTime / samplesPerSize / 1_000;
     }
 
     /**
@@ -108,7 +123,7 @@ public class KthSelectorAnalysis {
      * @param methodCode The method code representing the algorithm.
      * @return The selector algorithm.
      */
-    private static SelectorAlgorithm getSelectorAlgorithm(int methodCode){
+    static SelectorAlgorithm getSelectorAlgorithm(int methodCode){
         switch (methodCode) {
             case 0:
                 return KthElementSelector::naiveApproach;
@@ -116,12 +131,39 @@ public class KthSelectorAnalysis {
                 return KthElementSelector::randomizedApproach;
             case 2:
                 return KthElementSelector::deterministicApproach;
+            case 3:
+                return KthElementSelector::introselectApproach;
+            case 4:
+                return KthElementSelector::floydRivestApproach;
+            case 5:
+                return KthElementSelector::parallelApproach;
             default:
                 break;
         }
         throw new RuntimeException("Method Code is not valid.");
     }
 
+    /**
+     * @return The method codes of all the selector algorithms, in the order of METHOD_NAMES.
+     */
+    static int[] allMethodCodes(){
+        int[] methodCodes = new int[METHOD_NAMES.length];
+        Arrays.setAll(methodCodes, i -> i);
+        return methodCodes;
+    }
+
+    /**
+     * @param methodName The name of a selector algorithm, see METHOD_NAMES.
+     * @return The method code of the algorithm.
+     * @throws RuntimeException if the name is not one of METHOD_NAMES.
+     */
+    static int methodCodeOf(String methodName){
+        int methodCode = Arrays.asList(METHOD_NAMES).indexOf(methodName);
+        if(methodCode < 0)
+            throw new RuntimeException("Unknown method: " + methodName);
+        return methodCode;
+    }
+
     /**
      * Generate random parameters for the analysis.
      * @param arraySize The size of the array.
@@ -130,21 +172,8 @@ public class KthSelectorAnalysis {
      */
     private static Arguments generateParameters(int arraySize, int range){
         Random rand = new Random();
-        Set<Integer> uniqueNumbers = new HashSet<>();
-        int[] randomArray = new int[arraySize];
-
-        for (int i = 0; i < arraySize; i++) {
-            int randomNumber;
-
-            do {
-                // Generate a random integer between -range and range
-                randomNumber = rand.nextInt(2 * range) - range;
-            } while (uniqueNumbers.contains(randomNumber)); // Continue generating until it's unique
-
-            uniqueNumbers.add(randomNumber);
-            randomArray[i] = randomNumber;
-        }
-
+        // unique integers between -range and range, without a set of the generated numbers
+        int[] randomArray = new UniqueInputGenerator(rand.nextLong()).uniform(arraySize, range);
         return (Arguments.of(randomArray, rand.nextInt(randomArray.length) + 1));
     }
 }
@@ -0,0 +1,290 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * A benchmark harness for the k-th element selection algorithms (the ones of KthSelectorAnalysis), in the spirit of
+ * JMH (which this project doesn't depend on), that measures every algorithm across array sizes and input
+ * distributions:
+ *  - Each measurement (algorithm, size, distribution) runs warmup iterations, that are not recorded, before the
+ *    measured iterations, so that the JIT compiles the algorithm first.
+ *  - An iteration times each operation with System.nanoTime(), and excludes the copy of the input (a selection
+ *    rearranges its array). Small arrays run several operations per iteration, and report the time per operation.
+ *  - The allocated bytes per operation (of the calling thread) and the garbage collections are recorded, as the
+ *    gc profiler of JMH does.
+ *  - Each measurement can run in one or more forked JVMs, so that the profile collected by the JIT for one
+ *    algorithm doesn't affect the next one, the samples of the forks are pooled.
+ * The results are written as a JSON array (one object per measurement) that can be diffed between releases.
+ */
+public class KthSelectorBenchmark {
+    /** The minimum number of elements processed per iteration, small arrays are selected several times per iteration. */
+    private static final int MIN_ELEMENTS_PER_ITERATION = 1 << 20;
+    /** The factor of the standard error in the reported error, the normal quantile of a 99.9% confidence interval. */
+    private static final double CONFIDENCE_FACTOR = 3.29;
+
+    private int warmupIterations = 5;
+    private int measurementIterations = 10;
+    private int forks = 0;
+    private int[] sizes = {1_000, 10_000, 100_000, 1_000_000};
+    private UniqueInputGenerator.Distribution[] distributions = UniqueInputGenerator.Distribution.values();
+    private int[] methodCodes = KthSelectorAnalysis.allMethodCodes();
+
+    /**
+     * Main method that runs the benchmark.
+     * @param args Command-line options, each followed by its value:
+     *             "--warmup" the number of warmup iterations (5 by default),
+     *             "--iterations" the number of measured iterations (10 by default),
+     *             "--forks" the number of forked JVMs per measurement (0 by default, to run in this JVM),
+     *             "--sizes" comma separated array sizes,
+     *             "--distributions" comma separated distribution names (see UniqueInputGenerator.Distribution),
+     *             "--methods" comma separated method names (see KthSelectorAnalysis.METHOD_NAMES),
+     *             "--output" the path of the JSON output file (the standard output by default).
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        KthSelectorBenchmark benchmark = new KthSelectorBenchmark();
+        String output = null;
+        boolean forkChild = false;
+        for(int i = 0 ; i < args.length ; i++) {
+            if(args[i].equals("--fork-child")) {         // internal, a forked JVM that runs a single measurement
+                forkChild = true;
+                continue;
+            }
+            if(i + 1 >= args.length)
+                throw new RuntimeException("Missing value of the option: " + args[i]);
+            String value = args[++i];
+            switch (args[i - 1]) {
+                case "--warmup": benchmark.warmupIterations = Integer.parseInt(value); break;
+                case "--iterations": benchmark.measurementIterations = Integer.parseInt(value); break;
+                case "--forks": benchmark.forks = Integer.parseInt(value); break;
+                case "--sizes": benchmark.sizes = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray(); break;
+                case "--distributions":
+                    benchmark.distributions = Arrays.stream(value.split(","))
+                            .map(UniqueInputGenerator.Distribution::valueOf).toArray(UniqueInputGenerator.Distribution[]::new);
+                    break;
+                case "--methods":
+                    benchmark.methodCodes = Arrays.stream(value.split(",")).mapToInt(KthSelectorAnalysis::methodCodeOf).toArray();
+                    break;
+                case "--output": output = value; break;
+                default: throw new RuntimeException("Unknown option: " + args[i - 1]);
+            }
+        }
+
+        if(forkChild) {
+            // print the samples of the single measurement, to be read by the parent JVM
+            System.out.println(benchmark.measure(benchmark.methodCodes[0], benchmark.sizes[0], benchmark.distributions[0]).toSamplesLine());
+            return;
+        }
+        String json = benchmark.runAll();
+        if(output == null)
+            System.out.println(json);
+        else
+            Files.write(Paths.get(output), json.getBytes());
+    }
+
+    /**
+     * Runs all the measurements, in this JVM or in forked JVMs.
+     * @return The results, as a JSON array.
+     */
+    String runAll() throws IOException, InterruptedException {
+        StringBuilder json = new StringBuilder("[\n");
+        boolean first = true;
+        for(int methodCode : methodCodes) {
+            for(UniqueInputGenerator.Distribution distribution : distributions) {
+                for(int size : sizes) {
+                    Result result = forks == 0 ? measure(methodCode, size, distribution) : measureForked(methodCode, size, distribution);
+                    if(!first)
+                        json.append(",\n");
+                    first = false;
+                    json.append(result.toJson());
+                    System.err.println(result.summary());
+                }
+            }
+        }
+        return json.append("\n]\n").toString();
+    }
+
+    /**
+     * Runs a single measurement in this JVM.
+     * @param methodCode The algorithm, see KthSelectorAnalysis.getSelectorAlgorithm().
+     * @param size The size of the input array.
+     * @param distribution The distribution of the input array.
+     * @return The samples of the measurement.
+     */
+    Result measure(int methodCode, int size, UniqueInputGenerator.Distribution distribution){
+        KthSelectorAnalysis.SelectorAlgorithm algorithm = KthSelectorAnalysis.getSelectorAlgorithm(methodCode);
+        int[] input = new UniqueInputGenerator(KthSelectorAnalysis.INPUT_SEED)
+                .generate(distribution, size, KthSelectorAnalysis.VALUES_RANGE);
+        int k = new SplittableRandom(KthSelectorAnalysis.INPUT_SEED).nextInt(size) + 1;
+        int[] work = new int[size];
+        int operationsPerIteration = Math.max(1, MIN_ELEMENTS_PER_ITERATION / size);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        boolean allocationSupported = threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled();
+
+        for(int iteration = 0 ; iteration < warmupIterations ; iteration++)
+            runIteration(algorithm, input, work, k, operationsPerIteration);
+
+        long[] gcBefore = gcCountAndTime();
+        long allocatedBefore = allocationSupported ? threads.getThreadAllocatedBytes(threadId) : 0;
+        double[] nanosPerOperation = new double[measurementIterations];
+        for(int iteration = 0 ; iteration < measurementIterations ; iteration++)
+            nanosPerOperation[iteration] = (double) runIteration(algorithm, input, work, k, operationsPerIteration) / operationsPerIteration;
+        long allocated = allocationSupported ? threads.getThreadAllocatedBytes(threadId) - allocatedBefore : -1;
+        long[] gcAfter = gcCountAndTime();
+
+        long operations = (long) measurementIterations * operationsPerIteration;
+        return new Result(KthSelectorAnalysis.METHOD_NAMES[methodCode], size, distribution, nanosPerOperation,
+                allocationSupported ? (double) allocated / operations : Double.NaN,
+                gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+    }
+
+    /**
+     * Runs a single measurement in each of the forked JVMs, and pools their samples.
+     */
+    private Result measureForked(int methodCode, int size, UniqueInputGenerator.Distribution distribution) throws IOException, InterruptedException {
+        Result pooled = null;
+        for(int fork = 0 ; fork < forks ; fork++) {
+            String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    KthSelectorBenchmark.class.getName(), "--fork-child",
+                    "--warmup", Integer.toString(warmupIterations), "--iterations", Integer.toString(measurementIterations),
+                    "--sizes", Integer.toString(size), "--distributions", distribution.name(),
+                    "--methods", KthSelectorAnalysis.METHOD_NAMES[methodCode]);
+            builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+            Process process = builder.start();
+            String line;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                line = reader.readLine();
+            }
+            if(process.waitFor() != 0 || line == null)
+                throw new RuntimeException("The forked JVM of " + KthSelectorAnalysis.METHOD_NAMES[methodCode] + " failed.");
+            Result result = Result.fromSamplesLine(KthSelectorAnalysis.METHOD_NAMES[methodCode], size, distribution, line);
+            pooled = pooled == null ? result : pooled.pool(result);
+        }
+        return pooled;
+    }
+
+    /**
+     * Runs the given number of selections, each on a fresh copy of the input.
+     * @return The total time of the selections (without the copies), in nanoseconds.
+     */
+    private static long runIteration(KthSelectorAnalysis.SelectorAlgorithm algorithm, int[] input, int[] work, int k,
+                                     int operations){
+        long total = 0;
+        for(int operation = 0 ; operation < operations ; operation++) {
+            System.arraycopy(input, 0, work, 0, input.length);
+            long startTime = System.nanoTime();
+            int selected = algorithm.apply(work, k);
+            total += System.nanoTime() - startTime;
+            KthSelectorAnalysis.sink = selected;
+        }
+        return total;
+    }
+
+    private static long[] gcCountAndTime(){
+        long count = 0, time = 0;
+        for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[]{count, time};
+    }
+
+    /**
+     * The samples of a measurement, and their statistics.
+     */
+    static class Result {
+        final String method;
+        final int size;
+        final UniqueInputGenerator.Distribution distribution;
+        final double[] nanosPerOperation;       // a sample per measured iteration
+        final double allocatedBytesPerOperation;
+        final long gcCount, gcTimeMillis;
+
+        Result(String method, int size, UniqueInputGenerator.Distribution distribution, double[] nanosPerOperation,
+               double allocatedBytesPerOperation, long gcCount, long gcTimeMillis){
+            this.method = method;
+            this.size = size;
+            this.distribution = distribution;
+            this.nanosPerOperation = nanosPerOperation;
+            this.allocatedBytesPerOperation = allocatedBytesPerOperation;
+            this.gcCount = gcCount;
+            this.gcTimeMillis = gcTimeMillis;
+        }
+
+        double mean(){
+            return Arrays.stream(nanosPerOperation).average().orElse(Double.NaN);
+        }
+
+        /**
+         * @return The half width of the 99.9% confidence interval of the mean.
+         */
+        double error(){
+            int n = nanosPerOperation.length;
+            if(n < 2)
+                return Double.NaN;
+            double mean = mean(), variance = 0;
+            for(double sample : nanosPerOperation)
+                variance += (sample - mean) * (sample - mean);
+            return CONFIDENCE_FACTOR * Math.sqrt(variance / (n - 1) / n);
+        }
+
+        /**
+         * Pools the samples of 2 forks of the same measurement.
+         */
+        Result pool(Result other){
+            double[] samples = Arrays.copyOf(nanosPerOperation, nanosPerOperation.length + other.nanosPerOperation.length);
+            System.arraycopy(other.nanosPerOperation, 0, samples, nanosPerOperation.length, other.nanosPerOperation.length);
+            int n = nanosPerOperation.length, m = other.nanosPerOperation.length;
+            return new Result(method, size, distribution, samples,
+                    (allocatedBytesPerOperation * n + other.allocatedBytesPerOperation * m) / (n + m),
+                    gcCount + other.gcCount, gcTimeMillis + other.gcTimeMillis);
+        }
+
+        String toJson(){
+            double[] sorted = nanosPerOperation.clone();
+            Arrays.sort(sorted);
+            return String.format(Locale.ROOT,
+                    "  {\"benchmark\": \"%s\", \"size\": %d, \"distribution\": \"%s\", \"mode\": \"avgt\", " +
+                    "\"unit\": \"ns/op\", \"score\": %.3f, \"error\": %.3f, \"min\": %.3f, \"max\": %.3f, " +
+                    "\"samples\": %s, \"gc.alloc.rate.norm\": %s, \"gc.count\": %d, \"gc.time\": %d}",
+                    method, size, distribution, mean(), error(), sorted[0], sorted[sorted.length - 1],
+                    Arrays.toString(nanosPerOperation), Double.isNaN(allocatedBytesPerOperation) ? "null" :
+                            String.format(Locale.ROOT, "%.1f", allocatedBytesPerOperation),
+                    gcCount, gcTimeMillis).replace("NaN", "null");
+        }
+
+        String summary(){
+            return String.format(Locale.ROOT, "%-14s %-13s %10d  %14.1f +- %10.1f ns/op  %12.1f B/op",
+                    method, distribution, size, mean(), error(), allocatedBytesPerOperation);
+        }
+
+        /**
+         * @return The samples, the allocation and the collections, as a line of space separated values.
+         */
+        String toSamplesLine(){
+            StringBuilder line = new StringBuilder();
+            line.append(allocatedBytesPerOperation).append(' ').append(gcCount).append(' ').append(gcTimeMillis);
+            for(double sample : nanosPerOperation)
+                line.append(' ').append(sample);
+            return line.toString();
+        }
+
+        static Result fromSamplesLine(String method, int size, UniqueInputGenerator.Distribution distribution, String line){
+            String[] values = line.trim().split(" ");
+            double[] samples = new double[values.length - 3];
+            for(int i = 0 ; i < samples.length ; i++)
+                samples[i] = Double.parseDouble(values[i + 3]);
+            return new Result(method, size, distribution, samples, Double.parseDouble(values[0]),
+                    Long.parseLong(values[1]), Long.parseLong(values[2]));
+        }
+    }
+}
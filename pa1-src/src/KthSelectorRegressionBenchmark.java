@@ -0,0 +1,196 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A regression benchmark of the worst cases of the k-th element selection algorithms (the ones of
+ * KthSelectorAnalysis), that fails when an algorithm scales worse than expected on some input:
+ *  - The inputs are adversarial to the pivot rules: sorted input (against the first element pivot of partition()),
+ *    Musser's median-of-3 killer (against the median of the first, middle and last elements), and heavily
+ *    duplicated values (against two-way partitions), besides uniform input as a baseline.
+ *  - Every algorithm selects the median of each input, at sizes that grow geometrically, and the median running
+ *    time and number of comparisons of several runs are recorded.
+ *  - The scaling exponent of each metric is the slope of its log-log fit over the sizes (least squares), about 1
+ *    for a linear algorithm, and 2 for a quadratic one. The run fails when an exponent exceeds its maximum.
+ * The comparisons are counted only when the system property "kthselector.countComparisons" is set (see
+ * KthElementSelector.COUNT_COMPARISONS), so the main method runs the benchmark in a JVM that sets it. The naive
+ * approach (Arrays.sort()) is only timed.
+ */
+public class KthSelectorRegressionBenchmark {
+    /** The minimum number of elements processed by the warmup of each measurement, so that the JIT compiles it first. */
+    private static final int MIN_WARMUP_ELEMENTS = 1 << 22;
+
+    int[] sizes = {1 << 14, 1 << 15, 1 << 16, 1 << 17, 1 << 18, 1 << 19, 1 << 20};
+    UniqueInputGenerator.Distribution[] distributions = {UniqueInputGenerator.Distribution.UNIFORM,
+            UniqueInputGenerator.Distribution.SORTED, UniqueInputGenerator.Distribution.MEDIAN_OF_3_KILLER,
+            UniqueInputGenerator.Distribution.FEW_DISTINCT};
+    int[] methodCodes = KthSelectorAnalysis.allMethodCodes();
+    int runs = 5;
+    double maxComparisonsExponent = 1.4;
+    double maxTimeExponent = 1.6;
+
+    /**
+     * Main method that runs the benchmark, and exits with the status 1 if an algorithm exceeds a maximum exponent.
+     * @param args Command-line options, each followed by its value:
+     *             "--sizes" comma separated array sizes (at least 2),
+     *             "--distributions" comma separated distribution names (see UniqueInputGenerator.Distribution),
+     *             "--methods" comma separated method names (see KthSelectorAnalysis.METHOD_NAMES),
+     *             "--runs" the number of measured runs per size (5 by default),
+     *             "--max-comparisons-exponent" the maximum scaling exponent of the comparisons (1.4 by default, an
+     *             n log n algorithm fits about 1.1, and the parallel approach up to 1.3, since the share of its
+     *             partitions that are done in parallel, by 2 passes, grows with the size),
+     *             "--max-time-exponent" the maximum scaling exponent of the time (1.6 by default, the time is
+     *             noisier, and larger arrays don't fit in the caches).
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if(!KthElementSelector.COUNT_COMPARISONS) {
+            // run again in a JVM that counts the comparisons
+            String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            List<String> command = new ArrayList<>(Arrays.asList(java, "-Dkthselector.countComparisons=true",
+                    "-cp", System.getProperty("java.class.path"), KthSelectorRegressionBenchmark.class.getName()));
+            command.addAll(Arrays.asList(args));
+            System.exit(new ProcessBuilder(command).inheritIO().start().waitFor());
+        }
+
+        KthSelectorRegressionBenchmark benchmark = new KthSelectorRegressionBenchmark();
+        for(int i = 0 ; i < args.length ; i += 2) {
+            if(i + 1 >= args.length)
+                throw new RuntimeException("Missing value of the option: " + args[i]);
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--sizes": benchmark.sizes = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray(); break;
+                case "--distributions":
+                    benchmark.distributions = Arrays.stream(value.split(","))
+                            .map(UniqueInputGenerator.Distribution::valueOf).toArray(UniqueInputGenerator.Distribution[]::new);
+                    break;
+                case "--methods":
+                    benchmark.methodCodes = Arrays.stream(value.split(",")).mapToInt(KthSelectorAnalysis::methodCodeOf).toArray();
+                    break;
+                case "--runs": benchmark.runs = Integer.parseInt(value); break;
+                case "--max-comparisons-exponent": benchmark.maxComparisonsExponent = Double.parseDouble(value); break;
+                case "--max-time-exponent": benchmark.maxTimeExponent = Double.parseDouble(value); break;
+                default: throw new RuntimeException("Unknown option: " + args[i]);
+            }
+        }
+
+        List<String> failures = benchmark.run(System.out);
+        if(!failures.isEmpty()) {
+            System.err.println("FAILED:");
+            failures.forEach(failure -> System.err.println("  " + failure));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Measures every algorithm on every distribution and size, and checks their scaling exponents.
+     * @param report The stream of the table of the measurements and of the exponents.
+     * @return The failures, one per algorithm and distribution that exceeds a maximum exponent, or selects a wrong
+     * element, empty if the run passes.
+     */
+    List<String> run(PrintStream report){
+        if(sizes.length < 2)
+            throw new RuntimeException("2 sizes are required at least, to fit the scaling exponents.");
+        List<String> failures = new ArrayList<>();
+        report.println("Method\tDistribution\tSize\tTime (ns)\tComparisons\tComparisons / n");
+        for(int methodCode : methodCodes) {
+            String method = KthSelectorAnalysis.METHOD_NAMES[methodCode];
+            for(UniqueInputGenerator.Distribution distribution : distributions) {
+                double[] times = new double[sizes.length], comparisons = new double[sizes.length];
+                boolean counted = true, selectedWrongElement = false;
+                for(int s = 0 ; s < sizes.length && !selectedWrongElement ; s++) {
+                    long[] measurement = measure(methodCode, distribution, sizes[s]);
+                    if(measurement == null) {
+                        failures.add(String.format("%s on %s of size %d selected a wrong element", method, distribution, sizes[s]));
+                        selectedWrongElement = true;
+                        continue;
+                    }
+                    times[s] = measurement[0];
+                    comparisons[s] = measurement[1];
+                    counted &= measurement[1] > 0;
+                    report.printf(Locale.ROOT, "%s\t%s\t%d\t%d\t%s\t%s%n", method, distribution, sizes[s], measurement[0],
+                            measurement[1] > 0 ? Long.toString(measurement[1]) : "-",
+                            measurement[1] > 0 ? String.format(Locale.ROOT, "%.2f", (double) measurement[1] / sizes[s]) : "-");
+                }
+                if(selectedWrongElement)
+                    continue;
+
+                double timeExponent = scalingExponent(sizes, times);
+                double comparisonsExponent = counted ? scalingExponent(sizes, comparisons) : Double.NaN;
+                report.printf(Locale.ROOT, "%s\t%s\tscaling exponent: time %.3f, comparisons %s%n", method, distribution,
+                        timeExponent, counted ? String.format(Locale.ROOT, "%.3f", comparisonsExponent) : "-");
+                if(timeExponent > maxTimeExponent)
+                    failures.add(String.format(Locale.ROOT, "%s on %s: the time scales as n^%.3f, above n^%.3f",
+                            method, distribution, timeExponent, maxTimeExponent));
+                if(counted && comparisonsExponent > maxComparisonsExponent)
+                    failures.add(String.format(Locale.ROOT, "%s on %s: the comparisons scale as n^%.3f, above n^%.3f",
+                            method, distribution, comparisonsExponent, maxComparisonsExponent));
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Selects the median of an input with an algorithm, several times (after a warmup).
+     * @param methodCode The algorithm, see KthSelectorAnalysis.getSelectorAlgorithm().
+     * @param distribution The distribution of the input array.
+     * @param size The size of the input array.
+     * @return The median time (in nanoseconds) and the median number of comparisons (0 if they are not counted) of
+     * the runs, or null if a run selected a wrong element.
+     */
+    long[] measure(int methodCode, UniqueInputGenerator.Distribution distribution, int size){
+        KthSelectorAnalysis.SelectorAlgorithm algorithm = KthSelectorAnalysis.getSelectorAlgorithm(methodCode);
+        int[] input = new UniqueInputGenerator(KthSelectorAnalysis.INPUT_SEED)
+                .generate(distribution, size, KthSelectorAnalysis.VALUES_RANGE);
+        int k = (size + 1) / 2;
+        int[] sorted = input.clone();
+        Arrays.sort(sorted);
+        int[] work = new int[size];
+
+        for(int warmup = Math.max(1, MIN_WARMUP_ELEMENTS / size) ; warmup > 0 ; warmup--) {
+            System.arraycopy(input, 0, work, 0, size);
+            KthSelectorAnalysis.sink = algorithm.apply(work, k);
+        }
+        long[] times = new long[runs], comparisons = new long[runs];
+        for(int run = 0 ; run < runs ; run++) {
+            System.arraycopy(input, 0, work, 0, size);
+            KthElementSelector.resetComparisons();
+            long startTime = System.nanoTime();
+            int selected = algorithm.apply(work, k);
+            times[run] = System.nanoTime() - startTime;
+            comparisons[run] = KthElementSelector.comparisons();
+            if(selected != sorted[k - 1])
+                return null;
+            KthSelectorAnalysis.sink = selected;
+        }
+        Arrays.sort(times);
+        Arrays.sort(comparisons);
+        return new long[]{times[runs / 2], comparisons[runs / 2]};
+    }
+
+    /**
+     * Fits a power law, metric = c * size^exponent, to the measurements by least squares on a log-log scale.
+     * @param sizes The sizes, at least 2 distinct ones.
+     * @param metric The positive measurement of each size.
+     * @return The exponent, the slope of log(metric) over log(size).
+     */
+    static double scalingExponent(int[] sizes, double[] metric){
+        int n = sizes.length;
+        double meanX = 0, meanY = 0;
+        for(int i = 0 ; i < n ; i++) {
+            meanX += Math.log(sizes[i]) / n;
+            meanY += Math.log(Math.max(1, metric[i])) / n;
+        }
+        double covariance = 0, variance = 0;
+        for(int i = 0 ; i < n ; i++) {
+            double dx = Math.log(sizes[i]) - meanX;
+            covariance += dx * (Math.log(Math.max(1, metric[i])) - meanY);
+            variance += dx * dx;
+        }
+        return covariance / variance;
+    }
+
+}
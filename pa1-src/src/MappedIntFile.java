@@ -0,0 +1,124 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file of packed little-endian int32 values (the encoding of the binary point format of PointFileReader, without
+ * a header), memory-mapped for reading and writing, as a SelectionView: the selection engines of KthElementSelector
+ * rearrange the file in place, so files larger than the heap are selected from without copying them onto the heap.
+ * The pages are loaded and written back by the operating system, as the partitions touch them.
+ * The file is mapped in windows (a single mapping is limited to 2 GB), and holds at most 2^31 - 1 values (8 GB).
+ * Usage:
+ *  try (MappedIntFile file = MappedIntFile.open(path)) {
+ *      KthElementSelector.randomizedApproach(file, k);
+ *      int kthElement = file.get(k - 1);
+ *  }
+ */
+public class MappedIntFile implements SelectionView, AutoCloseable {
+    /** The number of values of each mapped window is 2^WINDOW_BITS (1 GB), so an index is split by shifting. */
+    private static final int WINDOW_BITS = 28;
+    private static final int WINDOW_MASK = (1 << WINDOW_BITS) - 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] mappings;
+    private final IntBuffer[] windows;
+    private final int size;
+
+    private MappedIntFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long fileSize = channel.size();
+        if(fileSize % Integer.BYTES != 0)
+            throw new RuntimeException("Invalid Input, the file size is not a multiple of 4 bytes.");
+        if(fileSize / Integer.BYTES > Integer.MAX_VALUE)
+            throw new RuntimeException("Invalid Input, the file has more than " + Integer.MAX_VALUE + " values.");
+        size = (int) (fileSize / Integer.BYTES);
+        int numberOfWindows = (int) (((long) size + WINDOW_MASK) >>> WINDOW_BITS);
+        mappings = new MappedByteBuffer[numberOfWindows];
+        windows = new IntBuffer[numberOfWindows];
+        for(int window = 0 ; window < numberOfWindows ; window++) {
+            long start = (long) window << WINDOW_BITS;
+            long values = Math.min(size - start, 1L << WINDOW_BITS);
+            mappings[window] = channel.map(FileChannel.MapMode.READ_WRITE, start * Integer.BYTES, values * Integer.BYTES);
+            windows[window] = mappings[window].order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+    }
+
+    /**
+     * Maps the given file for reading and writing.
+     * @param file The path to the file of packed little-endian int32 values.
+     * @return The mapped file.
+     * @throws RuntimeException if the file is not found, can't be mapped, or is not a whole number of values.
+     */
+    public static MappedIntFile open(String file){
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new MappedIntFile(channel);
+        } catch (NoSuchFileException E){
+            throw new RuntimeException("Input file wasn't found.");
+        } catch (IOException E){
+            closeQuietly(channel);
+            throw new RuntimeException("Input file couldn't be mapped.", E);
+        } catch (RuntimeException E){
+            closeQuietly(channel);
+            throw E;
+        }
+    }
+
+    /**
+     * @return The value at the given index.
+     */
+    public int get(int i){
+        return windows[i >>> WINDOW_BITS].get(i & WINDOW_MASK);
+    }
+
+    @Override
+    public int size(){
+        return size;
+    }
+
+    @Override
+    public int compare(int i, int j){
+        return Integer.compare(get(i), get(j));
+    }
+
+    @Override
+    public void swap(int i, int j){
+        IntBuffer windowI = windows[i >>> WINDOW_BITS], windowJ = windows[j >>> WINDOW_BITS];
+        int tempElement = windowI.get(i & WINDOW_MASK);
+        windowI.put(i & WINDOW_MASK, windowJ.get(j & WINDOW_MASK));
+        windowJ.put(j & WINDOW_MASK, tempElement);
+    }
+
+    /**
+     * Writes the rearranged values back to the file, and closes it. The mappings are released by the garbage
+     * collector, as Java provides no way to unmap them explicitly.
+     */
+    @Override
+    public void close(){
+        try {
+            for(MappedByteBuffer mapping : mappings)
+                mapping.force();
+        } catch (UncheckedIOException E){          // force() reports its I/O errors unchecked
+            throw new RuntimeException("Input file couldn't be written.", E.getCause());
+        } finally {
+            closeQuietly(channel);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel){
+        if(channel == null)
+            return;
+        try {
+            channel.close();
+        } catch (IOException ignored){
+            // nothing to be done, the values were already forced to the file (or couldn't be mapped at all).
+        }
+    }
+}
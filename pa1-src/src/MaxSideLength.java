@@ -1,6 +1,6 @@
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Given a set of two-dimensional points, the goal is to compute the maximum side length  of the
@@ -8,17 +8,111 @@ import java.util.*;
  * Notes:
  *  - Each point will be at the center of the surrounding square.
  *  - The sides of the squares can only be horizontal and vertical.
+ * Two squares of side L around 2 points don't intersect exactly when the Chebyshev (L-infinity) distance
+ * max(|dx|, |dy|) between the points is at least L, so the answer is the Chebyshev distance of the closest pair,
+ * and all the algorithms below measure distances in that metric, using integer arithmetic only.
  */
 public class MaxSideLength {
+    /** Marks the absence of a pair of points. */
+    private static final long NO_PAIR = -1;
+
+    /**
+     * The algorithms that can be used to find the closest pair of points.
+     */
+    public enum Strategy {
+        /**
+         * Divide and conquer, where the points are presorted by the y-coordinate once, and the y-order is split
+         * into 2 new arrays at every level of the recursion.
+         */
+        PRESORTED,
+        /**
+         * Divide and conquer, where the y-order is built bottom-up by merging the y-orders of the 2 halves
+         * (as in merge sort), and the strip is a window of a reusable buffer. Allocates nothing after setup.
+         */
+        IN_PLACE,
+        /**
+         * Randomized incremental algorithm (Rabin, Khuller-Matias): the points are inserted in a random order into
+         * a hashed grid whose cell side is the current minimum distance, so only the 9 cells around a point have
+         * to be checked, and the grid is rebuilt whenever the minimum distance shrinks. Runs in expected O(n),
+         * and doesn't sort the points. It is not faster than IN_PLACE in practice, on uniform input: the hashing
+         * and the random accesses to the points cost about as much as the sorts that it saves.
+         */
+        GRID
+    }
+
+    /** Subproblems with fewer points than this are solved sequentially by the parallel engine. */
+    private static final int PARALLEL_CUTOFF = 1 << 13;
+
+    private final Strategy strategy;
+    private final int threads;
+
+    // scratch buffers of the IN_PLACE strategy, the range [leftIdx, rightIdx] of each buffer belongs to the
+    // subproblem working on the points in [leftIdx, rightIdx].
+    private int[] yOrder;           // indices of the points, sorted by the y-coordinate (per solved subproblem)
+    private int[] mergeBuffer;      // used while merging the y-orders of 2 subproblems
+    private int[] stripeBuffer;     // indices of the points that fall in the strip of a subproblem
+
+    /**
+     * Creates a solver that uses the IN_PLACE strategy.
+     */
+    public MaxSideLength(){
+        this(Strategy.IN_PLACE);
+    }
+
+    /**
+     * Creates a solver that uses the given strategy, on a single thread.
+     * @param strategy The algorithm to be used to find the closest pair of points.
+     */
+    public MaxSideLength(Strategy strategy){
+        this(strategy, 1);
+    }
+
+    /**
+     * Creates a solver that uses the given strategy.
+     * @param strategy The algorithm to be used to find the closest pair of points.
+     * @param threads The number of threads, when greater than 1 the points are sorted in parallel, and the IN_PLACE
+     *                strategy solves the 2 halves of each subproblem in parallel on a ForkJoinPool (the recursion of
+     *                the PRESORTED strategy always runs on 1 thread, and the GRID strategy is sequential).
+     */
+    public MaxSideLength(Strategy strategy, int threads){
+        if(threads < 1)
+            throw new RuntimeException("The number of threads must be positive.");
+        this.strategy = strategy;
+        this.threads = threads;
+    }
+
     /**
      * Main method that demonstrates the usage of this class.
-     * @param args Command-line arguments (not used in this example).
+     * @param args Command-line arguments, either the input file path optionally preceded by the options
+     *             "--threads" followed by the number of threads to be used, and "--strategy" followed by the name
+     *             of the strategy to be used. Or "--to-binary" followed by a text input file path and the path of
+     *             the binary file to convert it into.
      */
     public static void main(String[] args) {
         if(args.length < 1)
             throw new RuntimeException("Input file was not passed as an argument.");
-        MaxSideLength maxSideLength = new MaxSideLength();
-        System.out.println(maxSideLength.solve(args[0]));
+        if(args[0].equals("--to-binary")) {
+            if(args.length < 3)
+                throw new RuntimeException("Input and output files were not passed as arguments.");
+            PointFileReader.writeBinary(args[1], args[2]);
+            return;
+        }
+        int threads = 1;
+        Strategy strategy = Strategy.IN_PLACE;
+        int argIdx = 0;
+        while(argIdx < args.length - 1 && args[argIdx].startsWith("--")) {
+            if(args[argIdx].equals("--threads"))
+                threads = Integer.parseInt(args[argIdx + 1]);
+            else if(args[argIdx].equals("--strategy"))
+                strategy = Strategy.valueOf(args[argIdx + 1]);
+            else
+                throw new RuntimeException("Unknown option: " + args[argIdx]);
+            argIdx += 2;
+        }
+        if(argIdx >= args.length)
+            throw new RuntimeException("Input file was not passed as an argument.");
+        MaxSideLength maxSideLength = new MaxSideLength(strategy, threads);
+        System.out.println(maxSideLength.solve(args[argIdx]));
     }
 
     /**
@@ -28,174 +122,427 @@ public class MaxSideLength {
      * @return The maximum side length of squares around the points.
      */
     public long solve(String inputFile){
-        int[][] xPoints = scanInput(inputFile);                         // points sorted by the x-coordinate
-        int[][] yPoints = Arrays.copyOf(xPoints, xPoints.length);       // points sorted by the y-coordinate
+        return solve(scanInput(inputFile));
+    }
+
+    /**
+     * Solves the problem of finding the maximum side length of squares around a set of points.
+     * @param points The points, will be sorted in place by the x-coordinate (except by the GRID strategy).
+     * @return The maximum side length of squares around the points.
+     * @throws RuntimeException if there are fewer than 2 points, or if there are duplicate points (detected after
+     * sorting, or by the GRID strategy as a pair at distance 0).
+     */
+    public long solve(PointSet points){
+        if(threads == 1)
+            return solveOnCurrentThread(points);
+        // the sort stage and the recursion both run on the pool, so they use the configured number of threads
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(() -> solveOnCurrentThread(points)).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
 
+    /**
+     * Solves the problem on the current thread, when called from a ForkJoinPool task (in case of multiple threads)
+     * the sort stage and the recursion fork their parallel work into that pool.
+     * @param points The points, will be sorted in place by the x-coordinate.
+     * @return The maximum side length of squares around the points.
+     */
+    private long solveOnCurrentThread(PointSet points){
+        if(strategy == Strategy.GRID)
+            return computeSquareSide(points, findClosestPairByGrid(points));
+
+        boolean parallel = threads > 1;
         // sort in O(n log n);
-        Arrays.sort(xPoints, Comparator.comparingInt((int[] point) -> point[0]).thenComparingInt(point -> point[1]));        // sort by the x-coordinate
-        Arrays.sort(yPoints, Comparator.comparingInt(point -> point[1]));        // sort by the y-coordinate
+        points.sortByX(parallel);                           // points sorted by the x-coordinate
+        checkInput(points);                                 // duplicates are adjacent after sorting
 
         // compute the nearest pair of points
-        int[][] closestPair = findClosestPair(xPoints, yPoints, 0, xPoints.length - 1);
+        long closestPair;
+        if(strategy == Strategy.PRESORTED) {
+            int[] yOrder = points.indicesByY(parallel);     // indices of the points, sorted by the y-coordinate
+            closestPair = findClosestPair(points, yOrder, 0, points.size() - 1);
+        } else {
+            allocateBuffers(points.size());
+            if(parallel && points.size() > PARALLEL_CUTOFF)
+                closestPair = new ClosestPairTask(points, 0, points.size() - 1).invoke();
+            else
+                closestPair = findClosestPairInPlace(points, 0, points.size() - 1);
+        }
 
         // compute the surrounding square minimum distance
-        return computeSquareSide(closestPair);
+        return computeSquareSide(points, closestPair);
     }
 
     /**
-     * Recursively finds the closest pair of points in the xPoints array using the divide and conquer algorithm.
-     * @param xPoints 2D array of points sorted by the x-coordinate.
-     * @param yPoints 2D array of points sorted by the y-coordinate.
-     * @param leftIdx Index of the left boundary in the current search interval in the xPoints array.
-     * @param rightIdx Index of the right boundary in the current search interval in the yPoints array.
-     * @return A 2D array containing the closest pair of points.
+     * Recursively finds the closest pair of points in the given points using the divide and conquer algorithm.
+     * A pair of points is represented by the indices of its 2 points, packed into a single long (see pairOf()).
+     * @param points The points, sorted by the x-coordinate.
+     * @param yOrder Indices of the points in the current search interval, sorted by the y-coordinate.
+     * @param leftIdx Index of the left boundary in the current search interval in the points.
+     * @param rightIdx Index of the right boundary in the current search interval in the points.
+     * @return The closest pair of points.
      */
-    private int[][] findClosestPair(int[][] xPoints, int[][] yPoints, int leftIdx, int rightIdx){
+    private long findClosestPair(PointSet points, int[] yOrder, int leftIdx, int rightIdx){
         // base case
         if(rightIdx - leftIdx + 1 <= 3)
-            return baseCase(xPoints, leftIdx, rightIdx);
+            return baseCase(points, leftIdx, rightIdx);
 
         // divide
         int partitionPointIndex = leftIdx + ((rightIdx - leftIdx) / 2);     // the index of the point at which the partition is being made.
-        int verticalLineValue = xPoints[partitionPointIndex][0];            // the x-coordinate value of the partitioning point (vertical line)
-        int[][] yPointsLeft = getNewYs(yPoints, xPoints[partitionPointIndex], true);
-        int[][] yPointsRight = getNewYs(yPoints, xPoints[partitionPointIndex], false);
+        int verticalLineValue = points.xs[partitionPointIndex];             // the x-coordinate value of the partitioning point (vertical line)
+        int[] yOrderLeft = getNewYs(yOrder, partitionPointIndex, true);
+        int[] yOrderRight = getNewYs(yOrder, partitionPointIndex, false);
 
         // conquer
-        int[][] leftNearestPoints = findClosestPair(xPoints, yPointsLeft, leftIdx, partitionPointIndex);
-        int[][] rightNearestPoints = findClosestPair(xPoints, yPointsRight, partitionPointIndex + 1, rightIdx);
+        long leftNearestPoints = findClosestPair(points, yOrderLeft, leftIdx, partitionPointIndex);
+        long rightNearestPoints = findClosestPair(points, yOrderRight, partitionPointIndex + 1, rightIdx);
 
         // combine
-        int[][] nearestPoints = getMinOfPoints(leftNearestPoints, rightNearestPoints);
+        long nearestPoints = getMinOfPoints(points, leftNearestPoints, rightNearestPoints);
         // points that fall in 2 * delta around the vertical line (delta in each side) SORTED BY THE Y-COORDINATE
-        int[][] pointsInStripe = getPointsInStripe(yPoints, verticalLineValue, computeEuclideanDistance(nearestPoints));
-        int[][] nearestPointsInStripe = getNearestPointsInStripe(pointsInStripe);
-        if(nearestPointsInStripe != null
-                && computeEuclideanDistance(nearestPointsInStripe) < computeEuclideanDistance(nearestPoints)) {
-            System.arraycopy(nearestPointsInStripe[0], 0, nearestPoints[0], 0, 2);
-            System.arraycopy(nearestPointsInStripe[1], 0, nearestPoints[1], 0, 2);
+        long delta = computeChebyshevDistance(points, nearestPoints);
+        int[] pointsInStripe = getPointsInStripe(points, yOrder, verticalLineValue, delta);
+        long nearestPointsInStripe = getNearestPointsInStripe(points, pointsInStripe, 0, pointsInStripe.length, delta);
+        if(nearestPointsInStripe != NO_PAIR)
+            nearestPoints = nearestPointsInStripe;
+
+        return nearestPoints;
+    }
+
+    /**
+     * Recursively finds the closest pair of points, same as findClosestPair(), but without allocating.
+     * Instead of splitting a presorted y-order, each call leaves the indices of its points sorted by the
+     * y-coordinate in yOrder[leftIdx..rightIdx], by merging the y-orders left by its 2 recursive calls.
+     * @param points The points, sorted by the x-coordinate.
+     * @param leftIdx Index of the left boundary in the current search interval in the points.
+     * @param rightIdx Index of the right boundary in the current search interval in the points.
+     * @return The closest pair of points.
+     */
+    private long findClosestPairInPlace(PointSet points, int leftIdx, int rightIdx){
+        // base case
+        if(rightIdx - leftIdx + 1 <= 3) {
+            sortByY(points, leftIdx, rightIdx);
+            return baseCase(points, leftIdx, rightIdx);
         }
 
+        // divide
+        int partitionPointIndex = leftIdx + ((rightIdx - leftIdx) / 2);
+
+        // conquer
+        long leftNearestPoints = findClosestPairInPlace(points, leftIdx, partitionPointIndex);
+        long rightNearestPoints = findClosestPairInPlace(points, partitionPointIndex + 1, rightIdx);
+
+        // combine
+        return combineInPlace(points, leftIdx, partitionPointIndex, rightIdx, leftNearestPoints, rightNearestPoints);
+    }
+
+    /**
+     * The combine step of findClosestPairInPlace(), checks the pairs of points that cross the vertical line.
+     * @param points             The points, sorted by the x-coordinate.
+     * @param leftIdx            Index of the left boundary of the left subproblem.
+     * @param midIdx             Index of the right boundary of the left subproblem (the partitioning point).
+     * @param rightIdx           Index of the right boundary of the right subproblem.
+     * @param leftNearestPoints  The closest pair of points of the left subproblem.
+     * @param rightNearestPoints The closest pair of points of the right subproblem.
+     * @return The closest pair of points in [leftIdx, rightIdx].
+     */
+    private long combineInPlace(PointSet points, int leftIdx, int midIdx, int rightIdx,
+                                long leftNearestPoints, long rightNearestPoints){
+        long nearestPoints = getMinOfPoints(points, leftNearestPoints, rightNearestPoints);
+        long delta = computeChebyshevDistance(points, nearestPoints);
+        int stripeEnd = mergeByY(points, leftIdx, midIdx, rightIdx, points.xs[midIdx], delta);
+        long nearestPointsInStripe = getNearestPointsInStripe(points, stripeBuffer, leftIdx, stripeEnd, delta);
+        if(nearestPointsInStripe != NO_PAIR)
+            nearestPoints = nearestPointsInStripe;
+
         return nearestPoints;
     }
 
+    /**
+     * The parallel version of findClosestPairInPlace(), which solves the 2 halves of a subproblem concurrently.
+     * The 2 halves work on disjoint ranges of the scratch buffers, so they don't need any synchronization.
+     */
+    private class ClosestPairTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final PointSet points;
+        private final int leftIdx, rightIdx;
+
+        ClosestPairTask(PointSet points, int leftIdx, int rightIdx){
+            this.points = points;
+            this.leftIdx = leftIdx;
+            this.rightIdx = rightIdx;
+        }
+
+        @Override
+        protected Long compute(){
+            if(rightIdx - leftIdx + 1 <= PARALLEL_CUTOFF)
+                return findClosestPairInPlace(points, leftIdx, rightIdx);
+
+            int partitionPointIndex = leftIdx + ((rightIdx - leftIdx) / 2);
+            ClosestPairTask leftTask = new ClosestPairTask(points, leftIdx, partitionPointIndex);
+            ClosestPairTask rightTask = new ClosestPairTask(points, partitionPointIndex + 1, rightIdx);
+            leftTask.fork();
+            long rightNearestPoints = rightTask.compute();
+            long leftNearestPoints = leftTask.join();
+
+            return combineInPlace(points, leftIdx, partitionPointIndex, rightIdx, leftNearestPoints, rightNearestPoints);
+        }
+    }
+
+    /**
+     * Merges the y-orders of 2 adjacent subproblems into the y-order of their union, and in the same pass
+     * collects the points that are closer than delta to the vertical line into stripeBuffer[leftIdx..].
+     * @param points       The points.
+     * @param leftIdx      Index of the left boundary of the left subproblem.
+     * @param midIdx       Index of the right boundary of the left subproblem.
+     * @param rightIdx     Index of the right boundary of the right subproblem.
+     * @param verticalLine The x-coordinate of the vertical line.
+     * @param delta        The current minimum distance, only points closer than delta to the line are included.
+     * @return The end (exclusive) of the strip window in stripeBuffer, which starts at leftIdx.
+     */
+    private int mergeByY(PointSet points, int leftIdx, int midIdx, int rightIdx, long verticalLine, long delta){
+        int[] xs = points.xs, ys = points.ys;
+        int i = leftIdx, j = midIdx + 1;
+        for(int k = leftIdx ; k <= rightIdx ; k++){
+            if(j > rightIdx || (i <= midIdx && ys[yOrder[i]] <= ys[yOrder[j]]))
+                mergeBuffer[k] = yOrder[i++];
+            else
+                mergeBuffer[k] = yOrder[j++];
+        }
+
+        int stripeEnd = leftIdx;
+        for(int k = leftIdx ; k <= rightIdx ; k++){
+            int idx = mergeBuffer[k];
+            yOrder[k] = idx;
+            if(Math.abs(xs[idx] - verticalLine) < delta)
+                stripeBuffer[stripeEnd++] = idx;
+        }
+        return stripeEnd;
+    }
+
+    /**
+     * Sorts the indices yOrder[leftIdx..rightIdx] of a base case (at most 3 points) by the y-coordinate.
+     * @param points   The points.
+     * @param leftIdx  Index of the left boundary of the base case.
+     * @param rightIdx Index of the right boundary of the base case.
+     */
+    private void sortByY(PointSet points, int leftIdx, int rightIdx){
+        int[] ys = points.ys;
+        for(int i = leftIdx ; i <= rightIdx ; i++){
+            int idx = i;
+            int j = i - 1;
+            for( ; j >= leftIdx && ys[yOrder[j]] > ys[idx] ; j--)
+                yOrder[j + 1] = yOrder[j];
+            yOrder[j + 1] = idx;
+        }
+    }
+
+    /**
+     * Makes sure that the scratch buffers of the IN_PLACE strategy can hold the given number of points.
+     * @param numberOfPoints The number of points to be solved.
+     */
+    private void allocateBuffers(int numberOfPoints){
+        if(yOrder == null || yOrder.length < numberOfPoints) {
+            yOrder = new int[numberOfPoints];
+            mergeBuffer = new int[numberOfPoints];
+            stripeBuffer = new int[numberOfPoints];
+        }
+    }
+
+    /**
+     * Finds the closest pair of points using the randomized incremental grid algorithm.
+     * The points are visited in a random order, keeping the minimum distance delta among the visited points, and
+     * a grid of delta x delta cells that holds the visited points. A point closer than delta to the new point can
+     * only be in one of the 9 cells around it, and there is a constant number of points per cell. When the new
+     * point is closer than delta to a visited point, delta shrinks and the grid is rebuilt, which happens at
+     * step i with probability O(1/i), so the expected running time is O(n).
+     * @param points The points, in any order.
+     * @return The closest pair of points.
+     * @throws RuntimeException if there are fewer than 2 points, or if there are duplicate points.
+     */
+    private long findClosestPairByGrid(PointSet points){
+        int n = points.size();
+        if(n < 2)
+            throw new RuntimeException("2 Points are required at least.");
+        int[] xs = points.xs, ys = points.ys;
+
+        // random insertion order (Fisher-Yates shuffle)
+        int[] order = new int[n];
+        for(int i = 0 ; i < n ; i++)
+            order[i] = i;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for(int i = n - 1 ; i > 0 ; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+
+        CellTable cells = new CellTable(n);
+        int[] nextInCell = new int[n];          // the points of a cell form a linked list, starting at cells.get()
+        long nearestPoints = pairOf(order[0], order[1]);
+        long delta = computeChebyshevDistance(points, nearestPoints);
+        buildGrid(points, order, 2, delta, cells, nextInCell);
+
+        for(int i = 2 ; i < n ; i++) {
+            int idx = order[i];
+            long cellX = Math.floorDiv(xs[idx], delta), cellY = Math.floorDiv(ys[idx], delta);
+            long nearestToIdx = NO_PAIR;
+            long smallestDistance = delta;
+            for(long cx = cellX - 1 ; cx <= cellX + 1 ; cx++) {
+                for(long cy = cellY - 1 ; cy <= cellY + 1 ; cy++) {
+                    for(int other = cells.get(CellTable.cellKey(cx, cy)) ; other != CellTable.MISSING ; other = nextInCell[other]) {
+                        long tempDistance = computeChebyshevDistance(points, idx, other);
+                        if(tempDistance < smallestDistance) {
+                            nearestToIdx = pairOf(other, idx);
+                            smallestDistance = tempDistance;
+                        }
+                    }
+                }
+            }
+
+            if(nearestToIdx == NO_PAIR) {           // delta didn't change, insert the point into its cell
+                long key = CellTable.cellKey(cellX, cellY);
+                nextInCell[idx] = cells.get(key);
+                cells.put(key, idx);
+            } else {                                // delta shrank, rebuild the grid with the new cell side
+                nearestPoints = nearestToIdx;
+                delta = smallestDistance;
+                buildGrid(points, order, i + 1, delta, cells, nextInCell);
+            }
+        }
+        return nearestPoints;
+    }
+
+    /**
+     * (Re)builds the grid used by findClosestPairByGrid(), with the first visited points.
+     * @param points     The points.
+     * @param order      The order in which the points are visited.
+     * @param count      The number of visited points, to be inserted into the grid.
+     * @param cellSide   The side of a grid cell (the current minimum distance).
+     * @param cells      The table that maps each non-empty cell to the first point in it.
+     * @param nextInCell The next point in the same cell, for each point.
+     * @throws RuntimeException if the cell side is 0, meaning that the input has duplicate points.
+     */
+    private void buildGrid(PointSet points, int[] order, int count, long cellSide, CellTable cells, int[] nextInCell){
+        if(cellSide == 0)
+            throw new RuntimeException("Invalid Input, duplicates are not allowed");
+        cells.clear();
+        for(int i = 0 ; i < count ; i++) {
+            int idx = order[i];
+            long key = CellTable.cellKey(Math.floorDiv(points.xs[idx], cellSide), Math.floorDiv(points.ys[idx], cellSide));
+            nextInCell[idx] = cells.get(key);
+            cells.put(key, idx);
+        }
+    }
+
     /**
      * Computes the side length of the square formed by the closest pair of points.
      * Which is essentially the maximum difference between either the x-coordinates or the y-coordinates
      * of those points.
-     * @param closestPair A 2D array containing the closest pair of points.
+     * @param points The points.
+     * @param closestPair The closest pair of points.
      * @return The side length of the square around the closest pair of points.
      */
-    private long computeSquareSide(int[][] closestPair){
-        return Math.max(
-                Math.abs(closestPair[0][0] - closestPair[1][0]),
-                Math.abs(closestPair[0][1] - closestPair[1][1])
-        );
+    private long computeSquareSide(PointSet points, long closestPair){
+        return computeChebyshevDistance(points, closestPair);
     }
 
     /**
-     * Gets the nearest pair of points within a stripe of points based on their Euclidean distance.
-     * @param pointsInStripe A 2D array containing points within the stripe of width 2 * delta.
-     * @return A 2D array containing the nearest pair of points within the strip, or null if there are fewer than 2 points.
+     * Gets the nearest pair of points within a stripe of points, if it is closer than delta.
+     * Each point is only compared with the points above it that are closer than the current minimum distance in
+     * the y-coordinate, since the stripe points on each side of the line are at least delta apart, there are at
+     * most 7 such points.
+     * @param points The points.
+     * @param pointsInStripe Indices of the points within the stripe of width 2 * delta, sorted by the y-coordinate.
+     * @param fromIdx The start (inclusive) of the stripe window in pointsInStripe.
+     * @param toIdx The end (exclusive) of the stripe window in pointsInStripe.
+     * @param delta The minimum distance found on both sides of the line.
+     * @return The nearest pair of points within the strip, or NO_PAIR if no pair is closer than delta.
      */
-    private int[][] getNearestPointsInStripe(int[][] pointsInStripe){
-        if(pointsInStripe.length < 2)
-            return null;
-        int[][] points = new int[2][2];
-        long smallestDistance = Long.MAX_VALUE;
-        for(int i = 0 ; i < pointsInStripe.length ; i++){
-            for(int j = i + 1 ; j < Math.min(pointsInStripe.length, i + 7) ; j++){
-                long tempDistance = computeEuclideanDistance(pointsInStripe[i], pointsInStripe[j]);
+    private long getNearestPointsInStripe(PointSet points, int[] pointsInStripe, int fromIdx, int toIdx, long delta){
+        int[] ys = points.ys;
+        long nearestPoints = NO_PAIR;
+        long smallestDistance = delta;
+        for(int i = fromIdx ; i < toIdx ; i++){
+            int lowerY = ys[pointsInStripe[i]];
+            for(int j = i + 1 ; j < toIdx && ys[pointsInStripe[j]] - (long) lowerY < smallestDistance ; j++){
+                long tempDistance = computeChebyshevDistance(points, pointsInStripe[i], pointsInStripe[j]);
                 if(tempDistance < smallestDistance) {
-                    points[0][0] = pointsInStripe[i][0];
-                    points[0][1] = pointsInStripe[i][1];
-                    points[1][0] = pointsInStripe[j][0];
-                    points[1][1] = pointsInStripe[j][1];
+                    nearestPoints = pairOf(pointsInStripe[i], pointsInStripe[j]);
                     smallestDistance = tempDistance;
                 }
             }
         }
-        return points;
+        return nearestPoints;
     }
 
     /**
-     * Filters and extracts points from the input 2D array 'yPoints' based on whether they belong to the specified partition.
-     * Points that meet the criteria (in the left or right partition) are extracted and returned as a new 2D array.
-     * @param yPoints          The 2D array of points sorted by the y-coordinate.
-     * @param partitioningPoint The point used for partitioning.
+     * Filters and extracts the indices from 'yOrder' that belong to the specified partition.
+     * Since the points are sorted by the x-coordinate (then the y-coordinate), a point belongs to the left
+     * partition exactly when its index is not greater than the partitioning point index.
+     * @param yOrder           Indices of the points, sorted by the y-coordinate.
+     * @param partitioningIdx  The index of the point used for partitioning.
      * @param inLeft           A boolean flag indicating whether to include points in the left partition or
      *                         not (so to include in the right partition).
-     * @return A new 2D array containing the points that belong to the specified partition.
+     * @return A new array containing the indices (still sorted by the y-coordinate) that belong to the specified partition.
      */
-    private int[][] getNewYs(int[][] yPoints, int[] partitioningPoint, boolean inLeft){
+    private int[] getNewYs(int[] yOrder, int partitioningIdx, boolean inLeft){
         int count = 0;
 
-        for(int[] point : yPoints)
-            if (isInSpecifiedPartition(point, partitioningPoint, inLeft))
+        for(int idx : yOrder)
+            if ((idx <= partitioningIdx) == inLeft)
                 count++;
 
-        int[][] newPoints = new int[count][2];
+        int[] newOrder = new int[count];
         int tempIndex = 0;
-        for(int[] point : yPoints)
-            if (isInSpecifiedPartition(point, partitioningPoint, inLeft)) {
-                newPoints[tempIndex][0] = point[0];
-                newPoints[tempIndex++][1] = point[1];
-            }
-
-        return newPoints;
-    }
+        for(int idx : yOrder)
+            if ((idx <= partitioningIdx) == inLeft)
+                newOrder[tempIndex++] = idx;
 
-    /**
-     * Checks whether a given point belongs to the specified partition based on the partitioning point and direction.
-     * @param point             The point to check, represented as a 2D array [x, y].
-     * @param partitioningPoint The point used for partitioning, represented as a 2D array [x, y].
-     * @param inLeft            A boolean flag indicating whether to check for inclusion in the left partition.
-     * @return True if the point belongs to the specified partition, false otherwise.
-     */
-    private boolean isInSpecifiedPartition(int[] point, int[] partitioningPoint, boolean inLeft){
-        return (
-                inLeft &&
-                        ((point[0] < partitioningPoint[0]) || ((point[0] == partitioningPoint[0]) && (point[1] <= partitioningPoint[1])))
-        ) || (!inLeft &&
-                ((point[0] > partitioningPoint[0]) || ((point[0] == partitioningPoint[0]) && (point[1] > partitioningPoint[1])))
-        );
+        return newOrder;
     }
 
     /**
-     * Filters and extracts points within a specified delta range around a vertical line from the input 2D array 'yPoints'.
-     * @param yPoints      The 2D array of points sorted by the y-coordinate.
+     * Filters and extracts points that are closer than delta to a vertical line from 'yOrder'.
+     * @param points       The points.
+     * @param yOrder       Indices of the points, sorted by the y-coordinate.
      * @param verticalLine The x-coordinate of the vertical line.
-     * @param delta        The maximum distance from the vertical line to include points.
-     * @return A new 2D array containing the points that fall within the specified delta range around the vertical line.
+     * @param delta        The current minimum distance, only points closer than delta to the line are included.
+     * @return A new array containing the indices of the points that are closer than delta to the vertical line,
+     * sorted by the y-coordinate.
      */
-    private int[][] getPointsInStripe(int[][] yPoints, long verticalLine, long delta){
+    private int[] getPointsInStripe(PointSet points, int[] yOrder, long verticalLine, long delta){
+        int[] xs = points.xs;
         int pointsCount = 0;
-        for (int[] point : yPoints) {
-            if (point[0] <= verticalLine + delta && point[0] >= verticalLine - delta)
+        for (int idx : yOrder) {
+            if (Math.abs(xs[idx] - verticalLine) < delta)
                 pointsCount++;
         }
 
-        int[][] points = new int[pointsCount][2];
+        int[] stripe = new int[pointsCount];
         int tempIndex = 0;
-        for (int[] yPoint : yPoints) {
-            if (yPoint[0] <= verticalLine + delta && yPoint[0] >= verticalLine - delta) {
-                points[tempIndex][0] = yPoint[0];
-                points[tempIndex++][1] = yPoint[1];
-            }
+        for (int idx : yOrder) {
+            if (Math.abs(xs[idx] - verticalLine) < delta)
+                stripe[tempIndex++] = idx;
         }
 
-        return points;
+        return stripe;
     }
 
     /**
-     * Compares two pairs of points and returns the pair with the smaller Euclidean distance.
-     * @param leftPoints  A 2D array representing the first pair of points as [point1, point2].
-     * @param rightPoints A 2D array representing the second pair of points as [point1, point2].
-     * @return The pair of points with the smaller Euclidean distance.
+     * Compares two pairs of points and returns the pair with the smaller distance.
+     * @param points      The points.
+     * @param leftPoints  The first pair of points.
+     * @param rightPoints The second pair of points.
+     * @return The pair of points with the smaller distance.
      */
-    private int[][] getMinOfPoints(int[][] leftPoints, int[][] rightPoints){
-        if(computeEuclideanDistance(leftPoints[0], leftPoints[1]) <=
-                computeEuclideanDistance(rightPoints[0], rightPoints[1]))
+    private long getMinOfPoints(PointSet points, long leftPoints, long rightPoints){
+        if(computeChebyshevDistance(points, leftPoints) <= computeChebyshevDistance(points, rightPoints))
             return leftPoints;
         else
             return rightPoints;
@@ -203,29 +550,23 @@ public class MaxSideLength {
 
     /**
      * Find the closest pair of points in a small set of points (where n is <= 3) using a brute-force approach.
-     * @param xPoints 2D array of points sorted by the x-coordinate.
+     * @param points The points, sorted by the x-coordinate.
      * @param leftIdx Index of the left boundary in the current search interval.
      * @param rightIdx Index of the right boundary in the current search interval.
-     * @return A 2D array containing the closest pair of points within the specified range.
+     * @return The closest pair of points within the specified range.
      * @throws RuntimeException if the base case requires at least 2 points.
      */
-    private int[][] baseCase(int[][] xPoints, int leftIdx, int rightIdx){
+    private long baseCase(PointSet points, int leftIdx, int rightIdx){
         if(rightIdx - leftIdx + 1 < 2)
             throw new RuntimeException("Base Case Requires 2 points at least.");
-        int[][] nearestPoints = new int[2][2];
+        long nearestPoints = NO_PAIR;
         long smallestDistance = Long.MAX_VALUE;
 
         for(int i = leftIdx ; i < rightIdx ; i++) {
-            for (int j = leftIdx + 1; j <= rightIdx; j++) {
-                if (i == j)
-                    continue;
-
-                long tempDistance = computeEuclideanDistance(xPoints[i], xPoints[j]);
+            for (int j = i + 1; j <= rightIdx; j++) {
+                long tempDistance = computeChebyshevDistance(points, i, j);
                 if (tempDistance < smallestDistance) {
-                    nearestPoints[0][0] = xPoints[i][0];
-                    nearestPoints[0][1] = xPoints[i][1];
-                    nearestPoints[1][0] = xPoints[j][0];
-                    nearestPoints[1][1] = xPoints[j][1];
+                    nearestPoints = pairOf(i, j);
                     smallestDistance = tempDistance;
                 }
             }
@@ -235,70 +576,81 @@ public class MaxSideLength {
     }
 
     /**
-     * Computes the Euclidean distance between two points represented as 2D arrays of integers.
-     * @param pt1 The first point represented as an array [x, y].
-     * @param pt2 The second point represented as an array [x, y].
-     * @return The Euclidean distance between the two points in the 2D space.
+     * Computes the Chebyshev (L-infinity) distance between two points, the differences are computed as longs so
+     * that they can't overflow.
+     * @param points The points.
+     * @param first The index of the first point.
+     * @param second The index of the second point.
+     * @return The Chebyshev distance between the two points, max(|dx|, |dy|).
      */
-    private long computeEuclideanDistance(int[] pt1, int[] pt2){
-        return (long) Math.sqrt(Math.pow(pt1[0] - pt2[0], 2) + Math.pow(pt1[1] - pt2[1], 2));
+    private long computeChebyshevDistance(PointSet points, int first, int second){
+        return Math.max(
+                Math.abs((long) points.xs[first] - points.xs[second]),
+                Math.abs((long) points.ys[first] - points.ys[second])
+        );
     }
 
     /**
-     * Computes the Euclidean distance between two points represented as arrays in a 2D space.
-     * @param points A 2D array containing two points as [point1, point2], where each point is represented as an array [x, y].
-     * @return The Euclidean distance between the two points in the 2D space.
+     * Computes the Chebyshev (L-infinity) distance between the two points of a pair.
+     * @param points The points.
+     * @param pair The pair of points.
+     * @return The Chebyshev distance between the two points, max(|dx|, |dy|).
      */
-    private long computeEuclideanDistance(int[][] points){
-        return computeEuclideanDistance(points[0], points[1]);
+    private long computeChebyshevDistance(PointSet points, long pair){
+        return computeChebyshevDistance(points, firstOf(pair), secondOf(pair));
     }
 
     /**
-     * Reads and parses input data from a text file, extracting an array of 2D points.
-     * @param inputFile The path to the input text file containing point data.
-     * @return A 2D array of points, where each point is represented as an array [x, y].
-     * @throws RuntimeException if the input file is not found.
+     * Packs a pair of points into a single long, so that no array is allocated per pair.
+     * @param first The index of the first point.
+     * @param second The index of the second point.
+     * @return The packed pair.
      */
-    private static int[][] scanInput(String inputFile){
-        int[][] points;
-        try {
-            File file = new File(inputFile);
-            Scanner scanner = new Scanner(file);
-
-            int numberOfPoints = scanner.nextInt();
-            points = new int[numberOfPoints][2];
+    private static long pairOf(int first, int second){
+        return ((long) first << 32) | second;
+    }
 
-            // to check that the input contains no duplicates
-            HashMap<Integer, Set<Integer>> duplicatesCheck = new HashMap<>();
+    /**
+     * @param pair A pair packed by pairOf().
+     * @return The index of the first point of the pair.
+     */
+    private static int firstOf(long pair){
+        return (int) (pair >>> 32);
+    }
 
-            for(int i = 0 ; i < numberOfPoints ; i++){
-                points[i][0] = scanner.nextInt();
-                points[i][1] = scanner.nextInt();
-                checkInput(points[i], duplicatesCheck);
-            }
+    /**
+     * @param pair A pair packed by pairOf().
+     * @return The index of the second point of the pair.
+     */
+    private static int secondOf(long pair){
+        return (int) pair;
+    }
 
+    /**
+     * Reads and parses input data from a point file, extracting its 2D points.
+     * The file is memory-mapped and parsed directly, and can be either in the text format or in the compact
+     * binary format written by PointFileReader.writeBinary() (detected automatically).
+     * @param inputFile The path to the input file containing point data.
+     * @return The points, in the order of the input file (duplicates are checked by solve(), after sorting).
+     * @throws RuntimeException if the input file is not found, or is malformed.
+     */
+    static PointSet scanInput(String inputFile){
+        try (PointFileReader reader = PointFileReader.open(inputFile)) {
+            PointSet points = new PointSet(reader.numberOfPoints());
+            reader.readPoints(points.xs, points.ys, 0, points.size());
             return points;
-        } catch (FileNotFoundException E){
-            throw new RuntimeException("Input file wasn't found.");
         }
     }
 
     /**
-     * Checks the validity of a 2D point and ensures that there are no duplicates.
-     * @param point The 2D point to be checked, represented as an array [x, y].
-     * @param duplicatesCheck A HashMap used to track and check for duplicate points.
-     * @throws RuntimeException if the input point is invalid or if a duplicate point is detected.
+     * Ensures that there are no duplicates among the points, which are adjacent once the points are sorted.
+     * @param points The points, sorted by the x-coordinate, then the y-coordinate.
+     * @throws RuntimeException if a duplicate point is detected.
      */
-    private static void checkInput(int[] point, HashMap<Integer, Set<Integer>> duplicatesCheck){
-        if(duplicatesCheck.containsKey(point[0])
-                && duplicatesCheck.get(point[0]).contains(point[1]))
-            throw new RuntimeException("Invalid Input, duplicates are not allowed");
-        if(duplicatesCheck.containsKey(point[0]))
-            duplicatesCheck.get(point[0]).add(point[1]);
-        else {
-            HashSet<Integer> tempSet = new HashSet<>();
-            tempSet.add(point[1]);
-            duplicatesCheck.put(point[0], tempSet);
-        }
+    static void checkInput(PointSet points){
+        int[] xs = points.xs, ys = points.ys;
+        for(int i = 1 ; i < xs.length ; i++)
+            if(xs[i] == xs[i - 1] && ys[i] == ys[i - 1])
+                throw new RuntimeException("Invalid Input, duplicates are not allowed");
     }
-}
\ No newline at end of file
+}
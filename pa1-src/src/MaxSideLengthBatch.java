@@ -0,0 +1,152 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Solves many point files in one JVM, so that the JVM startup and the JIT warmup are paid once for all of them.
+ * Each file goes through 2 stages: reading (on a pool of I/O threads) then solving (on a fixed pool of compute
+ * threads, each with its own MaxSideLength solver, so that the scratch buffers are reused across files).
+ * The results are written to a single output, one line per file in the order of the input list:
+ *  - "inputFile\tresult" when the file is solved.
+ *  - "inputFile\tERROR\tmessage" when the file is invalid.
+ */
+public class MaxSideLengthBatch {
+    private final int ioThreads;
+    private final int computeThreads;
+    private final int maxInFlight;
+
+    /**
+     * Main method that demonstrates the usage of this class.
+     * @param args Command-line arguments, a directory (all its files are solved) or a manifest file (one input file
+     *             path per line), optionally followed by the output file path (the standard output by default).
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1)
+            throw new RuntimeException("Input directory or manifest was not passed as an argument.");
+        MaxSideLengthBatch batch = new MaxSideLengthBatch(4, Runtime.getRuntime().availableProcessors());
+        List<String> inputFiles = listInputFiles(args[0]);
+        if(args.length < 2) {
+            Writer output = new BufferedWriter(new OutputStreamWriter(System.out));
+            batch.solveAll(inputFiles, output);
+            output.flush();
+        } else {
+            try (Writer output = Files.newBufferedWriter(Paths.get(args[1]))) {
+                batch.solveAll(inputFiles, output);
+            }
+        }
+    }
+
+    /**
+     * @param ioThreads The number of threads that read the input files.
+     * @param computeThreads The number of threads that solve the read points.
+     */
+    public MaxSideLengthBatch(int ioThreads, int computeThreads){
+        if(ioThreads < 1 || computeThreads < 1)
+            throw new RuntimeException("The number of threads must be positive.");
+        this.ioThreads = ioThreads;
+        this.computeThreads = computeThreads;
+        // bounds the number of files whose points are held in memory at the same time
+        this.maxInFlight = ioThreads + 2 * computeThreads;
+    }
+
+    /**
+     * Lists the input files of a batch.
+     * @param directoryOrManifest A directory, whose regular files (sorted by name) are the input files, or a manifest
+     *                            file that lists one input file per line (relative paths are resolved against the
+     *                            manifest's directory, blank lines and lines starting with '#' are skipped).
+     * @return The paths of the input files.
+     */
+    public static List<String> listInputFiles(String directoryOrManifest) throws IOException {
+        Path path = Paths.get(directoryOrManifest);
+        if(Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.list(path)) {
+                return files.filter(Files::isRegularFile).sorted().map(Path::toString).collect(Collectors.toList());
+            }
+        }
+        Path baseDirectory = path.toAbsolutePath().getParent();
+        List<String> inputFiles = new ArrayList<>();
+        for(String line : Files.readAllLines(path)) {
+            line = line.trim();
+            if(!line.isEmpty() && !line.startsWith("#"))
+                inputFiles.add(baseDirectory.resolve(line).toString());
+        }
+        return inputFiles;
+    }
+
+    /**
+     * Solves all the given input files, and writes their results to the output in the same order.
+     * @param inputFiles The paths of the input files.
+     * @param output The output, a line is written per input file.
+     */
+    public void solveAll(List<String> inputFiles, Writer output) throws IOException {
+        ExecutorService ioPool = Executors.newFixedThreadPool(ioThreads);
+        ExecutorService computePool = Executors.newFixedThreadPool(computeThreads);
+        ThreadLocal<MaxSideLength> solvers = ThreadLocal.withInitial(MaxSideLength::new);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        List<CompletableFuture<Long>> results = new ArrayList<>(inputFiles.size());
+        try {
+            int written = 0;
+            for(String inputFile : inputFiles) {
+                // while there is no free slot, wait for the oldest file and write the results that are ready
+                while(!inFlight.tryAcquire()) {
+                    if(written == results.size()) {     // all done, but the last slot is not released yet
+                        inFlight.acquire();
+                        break;
+                    }
+                    results.get(written).handle((side, error) -> null).join();
+                    written = writeReadyResults(inputFiles, results, written, output);
+                }
+                CompletableFuture<Long> result = CompletableFuture
+                        .supplyAsync(() -> MaxSideLength.scanInput(inputFile), ioPool)
+                        .thenApplyAsync(points -> solvers.get().solve(points), computePool);
+                result.whenComplete((side, error) -> inFlight.release());
+                results.add(result);
+            }
+            while(written < results.size()) {
+                results.get(written).handle((side, error) -> null).join();
+                written = writeReadyResults(inputFiles, results, written, output);
+            }
+        } catch (InterruptedException E){
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Batch was interrupted.", E);
+        } finally {
+            ioPool.shutdownNow();
+            computePool.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes the consecutive results that are done, starting from the first result that wasn't written yet.
+     * @return The index of the first result that is not written yet.
+     */
+    private int writeReadyResults(List<String> inputFiles, List<CompletableFuture<Long>> results, int written,
+                                  Writer output) throws IOException {
+        for( ; written < results.size() && results.get(written).isDone() ; written++) {
+            CompletableFuture<Long> result = results.get(written);
+            output.write(inputFiles.get(written));
+            try {
+                output.write("\t" + result.join() + "\n");
+            } catch (CompletionException E){
+                Throwable cause = E.getCause() != null ? E.getCause() : E;
+                output.write("\tERROR\t" + describe(cause) + "\n");
+            }
+            results.set(written, null);         // the result is written, let it be collected
+        }
+        return written;
+    }
+
+    /**
+     * @return The message of the error (or its class name, for errors without a message), on a single line without
+     * tabs, so that it can't break the line format of the results.
+     */
+    private static String describe(Throwable cause){
+        String message = cause.getMessage() != null ? cause.getMessage() : cause.toString();
+        return message.replace('\t', ' ').replace('\r', ' ').replace('\n', ' ');
+    }
+}
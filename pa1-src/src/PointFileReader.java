@@ -0,0 +1,240 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sequential reader for point files, that memory-maps the file instead of going through a Scanner.
+ * Two formats are supported, and detected from the first bytes of the file:
+ *  - Text format: the number of points, followed by the x and y coordinates of each point, separated by whitespace.
+ *  - Binary format: a header of 2 int32 values (the magic number, then the number of points), followed by
+ *    the x and y coordinates of each point as packed little-endian int32 values.
+ * The file is mapped in windows, so files larger than 2 GB can be read as well.
+ */
+public class PointFileReader implements AutoCloseable {
+    /** The magic number that identifies the binary format, reads as "MSL1" in the file. */
+    static final int BINARY_MAGIC = 0x314C534D;
+    /** The size in bytes of the binary format header (magic number + number of points). */
+    static final int BINARY_HEADER_SIZE = 8;
+    /** The size of each mapped window, a multiple of 8 so that binary values never straddle 2 windows. */
+    private static final long WINDOW_SIZE = 1L << 30;
+    /** The number of points copied at once from a mapped window, by readPoints(). */
+    private static final int BULK_CHUNK_POINTS = 1 << 14;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final boolean binary;
+    private final int numberOfPoints;
+    private MappedByteBuffer window;
+    private long windowEnd;             // the file offset right after the currently mapped window
+
+    private PointFileReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        mapWindow(0);
+        this.binary = window.remaining() >= BINARY_HEADER_SIZE && window.getInt(0) == BINARY_MAGIC;
+        if(binary){
+            window.position(4);
+            numberOfPoints = window.getInt();
+            if(numberOfPoints < 0 || fileSize < BINARY_HEADER_SIZE + 8L * numberOfPoints)
+                throw new RuntimeException("Invalid Input, binary file is truncated.");
+        } else {
+            numberOfPoints = nextInt();
+            if(numberOfPoints < 0)
+                throw new RuntimeException("Invalid Input, the number of points can't be negative.");
+        }
+    }
+
+    /**
+     * Opens the given point file, and reads its header (the number of points).
+     * @param inputFile The path to the input file containing the point coordinates.
+     * @return A reader positioned at the first point of the file.
+     * @throws RuntimeException if the input file is not found, or can't be read.
+     */
+    public static PointFileReader open(String inputFile){
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(Paths.get(inputFile), StandardOpenOption.READ);
+            return new PointFileReader(channel);
+        } catch (NoSuchFileException E){
+            throw new RuntimeException("Input file wasn't found.");
+        } catch (IOException E){
+            closeQuietly(channel);
+            throw new RuntimeException("Input file couldn't be read.", E);
+        } catch (RuntimeException E){
+            closeQuietly(channel);
+            throw E;
+        }
+    }
+
+    /**
+     * @return The number of points declared in the file header.
+     */
+    public int numberOfPoints(){
+        return numberOfPoints;
+    }
+
+    /**
+     * @return True if the file is in the compact binary format, false if it is in the text format.
+     */
+    public boolean isBinary(){
+        return binary;
+    }
+
+    /**
+     * Reads the next coordinate from the file, the coordinates are read in order x1, y1, x2, y2, ...
+     * @return The value of the next coordinate.
+     * @throws RuntimeException if the file ends early, or contains a value that is not a valid int.
+     */
+    public int nextInt(){
+        return binary ? nextBinaryInt() : nextTextInt();
+    }
+
+    /**
+     * Reads the coordinates of the next points into the given arrays, the same as calling nextInt() for each x and y
+     * coordinate in turn. In the binary format, each mapped window is read through a little-endian int view of it,
+     * with bulk copies (IntBuffer.get(int[], offset, length)) of chunks of coordinates, which are then split into
+     * the x and y arrays (they are interleaved in the file), instead of decoding every value separately.
+     * @param xs The array of the x-coordinates.
+     * @param ys The array of the y-coordinates.
+     * @param offset The index of the first point to be read, in the arrays.
+     * @param count The number of points to read.
+     * @throws RuntimeException if the file ends early, or contains a value that is not a valid int.
+     */
+    public void readPoints(int[] xs, int[] ys, int offset, int count){
+        if(!binary) {
+            for(int i = offset ; i < offset + count ; i++) {
+                xs[i] = nextTextInt();
+                ys[i] = nextTextInt();
+            }
+            return;
+        }
+        int[] chunk = new int[2 * Math.min(count, BULK_CHUNK_POINTS)];
+        // counted in values rather than in points: after an odd number of nextInt() calls, a window may end in
+        // the middle of a pair, and its last value must not be skipped
+        long values = 2L * count;
+        for(long v = 0 ; v < values ; ) {
+            if(!window.hasRemaining())
+                nextWindow();
+            IntBuffer coordinates = window.asIntBuffer();          // little-endian, as the window
+            int length = (int) Math.min(values - v, Math.min(chunk.length, coordinates.remaining()));
+            coordinates.get(chunk, 0, length);
+            window.position(window.position() + Integer.BYTES * length);
+            for(int j = 0 ; j < length ; j++, v++) {
+                int i = offset + (int) (v >>> 1);
+                if((v & 1) == 0)
+                    xs[i] = chunk[j];
+                else
+                    ys[i] = chunk[j];
+            }
+        }
+    }
+
+    /**
+     * Converts a text point file into the compact binary format, so that later runs skip the text parsing.
+     * @param inputFile The path to the text (or binary) point file.
+     * @param outputFile The path of the binary point file to be written.
+     */
+    public static void writeBinary(String inputFile, String outputFile){
+        try (PointFileReader reader = open(inputFile);
+             FileChannel out = FileChannel.open(Paths.get(outputFile), StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = BINARY_HEADER_SIZE + 8L * reader.numberOfPoints();
+            long position = 0;
+            while(position < size){
+                MappedByteBuffer buffer = out.map(FileChannel.MapMode.READ_WRITE, position, Math.min(WINDOW_SIZE, size - position));
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                if(position == 0)
+                    buffer.putInt(BINARY_MAGIC).putInt(reader.numberOfPoints());
+                while(buffer.hasRemaining())
+                    buffer.putInt(reader.nextInt());
+                position += buffer.capacity();
+            }
+        } catch (IOException E){
+            throw new RuntimeException("Output file couldn't be written.", E);
+        }
+    }
+
+    @Override
+    public void close(){
+        closeQuietly(channel);
+    }
+
+    private int nextBinaryInt(){
+        if(!window.hasRemaining())
+            nextWindow();
+        return window.getInt();
+    }
+
+    private int nextTextInt(){
+        int c = nextByte();
+        while(c != -1 && c <= ' ')      // skip the separating whitespace
+            c = nextByte();
+        if(c == -1)
+            throw new RuntimeException("Invalid Input, the file has fewer values than expected.");
+
+        boolean negative = c == '-';
+        if(negative)
+            c = nextByte();
+        if(c < '0' || c > '9')
+            throw new RuntimeException("Invalid Input, expected an integer value.");
+
+        long value = 0;
+        while(c >= '0' && c <= '9'){
+            value = value * 10 + (c - '0');
+            if(value > (long) Integer.MAX_VALUE + 1)
+                throw new RuntimeException("Invalid Input, value is out of the int range.");
+            c = nextByte();
+        }
+        if(c > ' ')
+            throw new RuntimeException("Invalid Input, expected an integer value.");
+
+        value = negative ? -value : value;
+        if(value > Integer.MAX_VALUE)
+            throw new RuntimeException("Invalid Input, value is out of the int range.");
+        return (int) value;
+    }
+
+    /**
+     * @return The next byte of the file, or -1 once the end of the file is reached.
+     */
+    private int nextByte(){
+        if(!window.hasRemaining()){
+            if(windowEnd >= fileSize)
+                return -1;
+            nextWindow();
+        }
+        return window.get() & 0xFF;
+    }
+
+    private void nextWindow(){
+        if(windowEnd >= fileSize)
+            throw new RuntimeException("Invalid Input, the file has fewer values than expected.");
+        try {
+            mapWindow(windowEnd);
+        } catch (IOException E){
+            throw new RuntimeException("Input file couldn't be read.", E);
+        }
+    }
+
+    private void mapWindow(long start) throws IOException {
+        long size = Math.min(WINDOW_SIZE, fileSize - start);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        window.order(ByteOrder.LITTLE_ENDIAN);
+        windowEnd = start + size;
+    }
+
+    private static void closeQuietly(FileChannel channel){
+        if(channel == null)
+            return;
+        try {
+            channel.close();
+        } catch (IOException ignored){
+            // nothing to be done, the file was only opened for reading.
+        }
+    }
+}
@@ -0,0 +1,160 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A set of two-dimensional points stored as parallel primitive arrays (structure of arrays), so that a point
+ * costs 8 bytes of heap instead of a separate int[2] object.
+ * The point at index i is (xs[i], ys[i]).
+ */
+public class PointSet {
+    /** The x-coordinates of the points. */
+    final int[] xs;
+    /** The y-coordinates of the points. */
+    final int[] ys;
+
+    /**
+     * Creates a point set of the given size, with all the coordinates set to 0.
+     * @param size The number of points.
+     */
+    public PointSet(int size){
+        this(new int[size], new int[size]);
+    }
+
+    /**
+     * Creates a point set that wraps the given coordinate arrays (the arrays are not copied).
+     * @param xs The x-coordinates of the points.
+     * @param ys The y-coordinates of the points, must have the same length as xs.
+     */
+    public PointSet(int[] xs, int[] ys){
+        if(xs.length != ys.length)
+            throw new RuntimeException("The x-coordinates and the y-coordinates must have the same length.");
+        this.xs = xs;
+        this.ys = ys;
+    }
+
+    /**
+     * @return The number of points in the set.
+     */
+    public int size(){
+        return xs.length;
+    }
+
+    /**
+     * @param i The index of the point.
+     * @return The x-coordinate of the point at index i.
+     */
+    public int x(int i){
+        return xs[i];
+    }
+
+    /**
+     * @param i The index of the point.
+     * @return The y-coordinate of the point at index i.
+     */
+    public int y(int i){
+        return ys[i];
+    }
+
+    /**
+     * Sets the coordinates of the point at index i.
+     * @param i The index of the point.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     */
+    public void set(int i, int x, int y){
+        xs[i] = x;
+        ys[i] = y;
+    }
+
+    /**
+     * @return A new point set, with a copy of the coordinates of this set.
+     */
+    public PointSet copy(){
+        return new PointSet(xs.clone(), ys.clone());
+    }
+
+    /**
+     * Sorts the points in place by the x-coordinate, breaking the ties by the y-coordinate.
+     * Each point is packed into a single long key that orders the same way, so the sort works on primitives.
+     */
+    public void sortByX(){
+        sortByX(false);
+    }
+
+    /**
+     * Sorts the points in place by the x-coordinate, breaking the ties by the y-coordinate.
+     * @param parallel Whether to sort (and pack/unpack the keys) in parallel, when called from a ForkJoinPool
+     *                 task the work is done by that pool, otherwise by the common pool.
+     */
+    public void sortByX(boolean parallel){
+        long[] keys = new long[size()];
+        range(keys.length, parallel).forEach(i -> keys[i] = packXY(xs[i], ys[i]));
+        if(parallel)
+            Arrays.parallelSort(keys);
+        else
+            Arrays.sort(keys);
+        range(keys.length, parallel).forEach(i -> {
+            xs[i] = unpackX(keys[i]);
+            ys[i] = unpackY(keys[i]);
+        });
+    }
+
+    /**
+     * Computes the order of the points by the y-coordinate, without moving the points themselves.
+     * @return The indices of the points, sorted by the y-coordinate (ties are broken by the index).
+     */
+    public int[] indicesByY(){
+        return indicesByY(false);
+    }
+
+    /**
+     * Computes the order of the points by the y-coordinate, without moving the points themselves.
+     * @param parallel Whether to sort (and pack/unpack the keys) in parallel, same as in sortByX().
+     * @return The indices of the points, sorted by the y-coordinate (ties are broken by the index).
+     */
+    public int[] indicesByY(boolean parallel){
+        long[] keys = new long[size()];
+        // the index is non-negative, so it fits in the lower half as is
+        range(keys.length, parallel).forEach(i -> keys[i] = ((long) ys[i] << 32) | i);
+        if(parallel)
+            Arrays.parallelSort(keys);
+        else
+            Arrays.sort(keys);
+        int[] indices = new int[keys.length];
+        range(keys.length, parallel).forEach(i -> indices[i] = (int) keys[i]);
+        return indices;
+    }
+
+    private static IntStream range(int size, boolean parallel){
+        IntStream range = IntStream.range(0, size);
+        return parallel ? range.parallel() : range;
+    }
+
+    /**
+     * Packs a point into a long key, such that comparing the keys as signed longs orders the points by the
+     * x-coordinate, then by the y-coordinate.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The packed key.
+     */
+    static long packXY(int x, int y){
+        // flipping the sign bit of y makes its unsigned order (in the lower half) match its signed order
+        return ((long) x << 32) | ((y ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @param key A key produced by packXY().
+     * @return The x-coordinate of the packed point.
+     */
+    static int unpackX(long key){
+        return (int) (key >> 32);
+    }
+
+    /**
+     * @param key A key produced by packXY().
+     * @return The y-coordinate of the packed point.
+     */
+    static int unpackY(long key){
+        return (int) key ^ Integer.MIN_VALUE;
+    }
+}
@@ -0,0 +1,233 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A streaming quantile sketch (KLL, Karnin-Lang-Liberty), that summarizes an unbounded stream of integers in a fixed
+ * amount of memory, and estimates the kth smallest element of the stream (or the rank of a value) with an error of
+ * about 1.7 * n / capacity ranks, with high probability.
+ * The sketch is a stack of compactors (levels), each item of the level h stands for 2^h items of the stream:
+ *  - New items are appended to the level 0.
+ *  - When the sketch is full, the lowest level that exceeds its capacity is compacted: it is sorted, and every other
+ *    item (starting at a random offset) is promoted to the next level, the rest are discarded.
+ *  - The capacities decrease geometrically (by 2/3) from the top level down, so the whole sketch holds O(capacity)
+ *    items, regardless of the length of the stream.
+ * Sketches of different parts of a stream (for example, built by different threads) can be merged into a sketch of
+ * the whole stream. A sketch is not thread safe, each thread should update its own sketch.
+ */
+public class QuantileSketch {
+    /** The default capacity, for an estimated rank error below 1% of the stream length. */
+    private static final int DEFAULT_CAPACITY = 200;
+    /** The estimated normalized rank error of a sketch of capacity k is RANK_ERROR_FACTOR / k. */
+    private static final double RANK_ERROR_FACTOR = 1.7;
+    /** The ratio between the capacities of 2 consecutive levels. */
+    private static final double CAPACITY_DECAY = 2.0 / 3;
+
+    private final int capacity;
+    private final SplittableRandom random;
+    private int[][] levels = new int[0][];
+    private int[] levelSizes = new int[0];
+    private int numberOfLevels;
+    private int retained;           // the number of items held by all the levels
+    private int maxRetained;        // the sum of the capacities of the levels, the sketch is compacted when reached
+    private long count;             // the number of items of the stream
+    private int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+
+    /**
+     * Creates a sketch of the default capacity.
+     */
+    public QuantileSketch(){
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity The capacity of the top level (k), the memory is proportional to it, and the rank error is
+     *                 inversely proportional to it.
+     */
+    public QuantileSketch(int capacity){
+        this(capacity, new SplittableRandom());
+    }
+
+    /**
+     * @param capacity The capacity of the top level (k), see QuantileSketch(capacity).
+     * @param seed The seed of the random offsets of the compactions, for reproducible sketches.
+     */
+    public QuantileSketch(int capacity, long seed){
+        this(capacity, new SplittableRandom(seed));
+    }
+
+    private QuantileSketch(int capacity, SplittableRandom random){
+        if(capacity < 8)
+            throw new RuntimeException("The capacity of the sketch must be 8 at least.");
+        this.capacity = capacity;
+        this.random = random;
+        addLevel();
+    }
+
+    /**
+     * Creates a sketch whose estimated rank error is at most the given fraction of the stream length.
+     * @param rankError The normalized rank error, in (0, 1).
+     * @return The sketch.
+     */
+    public static QuantileSketch withRankError(double rankError){
+        if(rankError <= 0 || rankError >= 1)
+            throw new RuntimeException("The rank error must be in the range (0, 1).");
+        return new QuantileSketch((int) Math.max(8, Math.ceil(RANK_ERROR_FACTOR / rankError)));
+    }
+
+    /**
+     * Adds an item of the stream to the sketch, in amortized O(1).
+     * @param value The item.
+     */
+    public void update(int value){
+        append(0, value);
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        if(++retained >= maxRetained)
+            compress();
+    }
+
+    /**
+     * Merges another sketch into this sketch, which then summarizes the 2 streams together.
+     * @param other The other sketch, it is not modified.
+     */
+    public void merge(QuantileSketch other){
+        while(numberOfLevels < other.numberOfLevels)
+            addLevel();
+        for(int h = 0 ; h < other.numberOfLevels ; h++)
+            for(int i = 0 ; i < other.levelSizes[h] ; i++)
+                append(h, other.levels[h][i]);
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        retained += other.retained;
+        while(retained >= maxRetained)
+            compress();
+    }
+
+    /**
+     * @return The number of items of the stream.
+     */
+    public long count(){
+        return count;
+    }
+
+    /**
+     * @return The estimated error of the ranks, as a number of ranks (the error holds with high probability).
+     */
+    public long rankError(){
+        return (long) Math.ceil(RANK_ERROR_FACTOR / capacity * count);
+    }
+
+    /**
+     * Estimates the rank of a value.
+     * @param value The value.
+     * @return The estimated number of items of the stream that are less than or equal to the value.
+     */
+    public long rank(int value){
+        long rank = 0;
+        for(int h = 0 ; h < numberOfLevels ; h++)
+            for(int i = 0 ; i < levelSizes[h] ; i++)
+                if(levels[h][i] <= value)
+                    rank += 1L << h;
+        return rank;
+    }
+
+    /**
+     * Estimates the kth smallest item of the stream.
+     * @param k The rank of the item, 1 based ranking.
+     * @return An item whose rank is k, up to the rank error. The smallest and the greatest items are exact.
+     * @throws RuntimeException if k is out of the range [1, count()].
+     */
+    public int kthSmallest(long k){
+        if(k < 1 || k > count)
+            throw new RuntimeException("The rank must be in the range [1, " + count + "].");
+        if(k == 1)
+            return min;
+        if(k == count)
+            return max;
+        // sort the items with their levels, (value, level) packed in a long, then accumulate their weights
+        long[] items = new long[retained];
+        int n = 0;
+        for(int h = 0 ; h < numberOfLevels ; h++)
+            for(int i = 0 ; i < levelSizes[h] ; i++)
+                items[n++] = ((long) levels[h][i] << 8) | h;
+        Arrays.sort(items);
+        long weight = 0;
+        for(long item : items) {
+            weight += 1L << (item & 0xFF);
+            if(weight >= k)
+                return (int) (item >> 8);
+        }
+        return max;
+    }
+
+    /**
+     * Estimates a quantile of the stream.
+     * @param fraction The fraction of the items that are less than or equal to the quantile, in [0, 1].
+     * @return The estimated quantile.
+     */
+    public int quantile(double fraction){
+        if(fraction < 0 || fraction > 1)
+            throw new RuntimeException("The fraction must be in the range [0, 1].");
+        return kthSmallest(Math.max(1, (long) Math.ceil(fraction * count)));
+    }
+
+    /**
+     * Compacts the lowest level that reached its capacity, adding a level on top if needed.
+     */
+    private void compress(){
+        for(int h = 0 ; h < numberOfLevels ; h++) {
+            if(levelSizes[h] >= capacityOf(h)) {
+                if(h + 1 == numberOfLevels)
+                    addLevel();
+                compact(h);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sorts the level, promotes every other item (from a random offset) to the next level, and discards the rest.
+     * When the level has an odd number of items, the greatest one stays in the level.
+     */
+    private void compact(int h){
+        int[] level = levels[h];
+        int size = levelSizes[h];
+        Arrays.sort(level, 0, size);
+        int offset = random.nextBoolean() ? 1 : 0;
+        for(int pair = 0 ; pair < size / 2 ; pair++)
+            append(h + 1, level[2 * pair + offset]);
+        if((size & 1) == 1) {
+            level[0] = level[size - 1];
+            levelSizes[h] = 1;
+        } else
+            levelSizes[h] = 0;
+        retained -= size / 2;
+    }
+
+    private void append(int h, int value){
+        if(levelSizes[h] == levels[h].length)
+            levels[h] = Arrays.copyOf(levels[h], Math.max(8, 2 * levels[h].length));
+        levels[h][levelSizes[h]++] = value;
+    }
+
+    private void addLevel(){
+        levels = Arrays.copyOf(levels, numberOfLevels + 1);
+        levelSizes = Arrays.copyOf(levelSizes, numberOfLevels + 1);
+        levels[numberOfLevels] = new int[8];
+        numberOfLevels++;
+        maxRetained = 0;
+        for(int h = 0 ; h < numberOfLevels ; h++)
+            maxRetained += capacityOf(h);
+    }
+
+    /**
+     * @return The capacity of the level h, the top level has the full capacity, and each level below it has 2/3
+     * of the capacity of the level above it (2 at least).
+     */
+    private int capacityOf(int h){
+        int depth = numberOfLevels - h - 1;
+        return (int) Math.ceil(capacity * Math.pow(CAPACITY_DECAY, depth)) + 1;
+    }
+}
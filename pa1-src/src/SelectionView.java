@@ -0,0 +1,134 @@
+import java.nio.IntBuffer;
+
+/**
+ * An indexed sequence of elements, that the view-based engines of KthElementSelector (randomizedApproach(view, k)
+ * and deterministicApproach(view, k)) rearrange in place, by comparing and swapping elements by their indices only.
+ * So the same engines permute an array of indices by the keys they point to (argselect), and select off the heap,
+ * in a buffer or a memory-mapped file (see MappedIntFile), without copying it. The arrays of primitives have their
+ * own engines instead, since a call through a view is not inlined once the JIT has seen several implementations.
+ */
+public interface SelectionView {
+    /**
+     * @return The number of elements.
+     */
+    int size();
+
+    /**
+     * Compares 2 elements, it must be a total order.
+     * @return A negative number, zero, or a positive number, if the element i is less than, equal to, or greater
+     * than the element j.
+     */
+    int compare(int i, int j);
+
+    /**
+     * Swaps 2 elements.
+     */
+    void swap(int i, int j);
+
+    /**
+     * @param elements The buffer, its elements from its position to its limit are rearranged by the selection
+     *                 (through absolute gets and puts, the position is not moved). A direct buffer, or a buffer over a
+     *                 memory-mapped file, is rearranged off the heap.
+     * @return A view of the remaining elements of the buffer, the index 0 is the position of the buffer.
+     */
+    static SelectionView of(IntBuffer elements){
+        int offset = elements.position(), size = elements.remaining();
+        return new SelectionView() {
+            @Override
+            public int size(){
+                return size;
+            }
+
+            @Override
+            public int compare(int i, int j){
+                return Integer.compare(elements.get(offset + i), elements.get(offset + j));
+            }
+
+            @Override
+            public void swap(int i, int j){
+                int tempElement = elements.get(offset + i);
+                elements.put(offset + i, elements.get(offset + j));
+                elements.put(offset + j, tempElement);
+            }
+        };
+    }
+
+    /**
+     * @param indices The indices of the keys, rearranged by the selection, the keys are not.
+     * @param keys The keys.
+     * @return A view of the indices, ordered by their keys.
+     */
+    static SelectionView byKeys(int[] indices, int[] keys){
+        return new SelectionView() {
+            @Override
+            public int size(){
+                return indices.length;
+            }
+
+            @Override
+            public int compare(int i, int j){
+                return Integer.compare(keys[indices[i]], keys[indices[j]]);
+            }
+
+            @Override
+            public void swap(int i, int j){
+                swapIndices(indices, i, j);
+            }
+        };
+    }
+
+    /**
+     * @param indices The indices of the keys, rearranged by the selection, the keys are not.
+     * @param keys The keys.
+     * @return A view of the indices, ordered by their keys.
+     */
+    static SelectionView byKeys(int[] indices, long[] keys){
+        return new SelectionView() {
+            @Override
+            public int size(){
+                return indices.length;
+            }
+
+            @Override
+            public int compare(int i, int j){
+                return Long.compare(keys[indices[i]], keys[indices[j]]);
+            }
+
+            @Override
+            public void swap(int i, int j){
+                swapIndices(indices, i, j);
+            }
+        };
+    }
+
+    /**
+     * @param indices The indices of the keys, rearranged by the selection, the keys are not.
+     * @param keys The keys, ordered as by Double.compare(): -0.0 is less than 0.0, and NaN is greater than every
+     *             other value (including positive infinity), and equal to itself.
+     * @return A view of the indices, ordered by their keys.
+     */
+    static SelectionView byKeys(int[] indices, double[] keys){
+        return new SelectionView() {
+            @Override
+            public int size(){
+                return indices.length;
+            }
+
+            @Override
+            public int compare(int i, int j){
+                return Double.compare(keys[indices[i]], keys[indices[j]]);
+            }
+
+            @Override
+            public void swap(int i, int j){
+                swapIndices(indices, i, j);
+            }
+        };
+    }
+
+    private static void swapIndices(int[] indices, int i, int j){
+        int tempIndex = indices[i];
+        indices[i] = indices[j];
+        indices[j] = tempIndex;
+    }
+}
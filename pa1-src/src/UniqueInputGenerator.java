@@ -0,0 +1,153 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Generates input arrays for the k-th element selection algorithms, reproducibly from a seed, without a set of
+ * boxed integers:
+ *  - Unique values come from a keyed pseudorandom permutation (a Feistel network) of the value range: the element i
+ *    is the image of i, so the elements are unique by construction, in a random order, and each one is computed
+ *    independently of the others, so large arrays are generated in parallel.
+ *  - The other distributions (sorted, reversed, organ pipe, median-of-3 killer) rearrange the unique values, and
+ *    the low-cardinality distribution hashes the index into a few values.
+ */
+public class UniqueInputGenerator {
+    /** The distributions of the generated arrays. */
+    public enum Distribution {
+        /** Unique values in a random order. */
+        UNIFORM,
+        /** Unique values in increasing order. */
+        SORTED,
+        /** Unique values in decreasing order. */
+        REVERSED,
+        /** Unique values, increasing then decreasing (the even ranks ascending, then the odd ranks descending). */
+        ORGAN_PIPE,
+        /**
+         * Unique values in the order of Musser's median-of-3 killer sequence, against the pivot rule that takes the
+         * median of the first, middle and last elements: for 2m elements (m even), the ranks
+         * 1, m + 1, 3, m + 3, ..., m - 1, 2m - 1, followed by 2, 4, ..., 2m. The remaining (at most 3) greatest
+         * values are appended in increasing order.
+         */
+        MEDIAN_OF_3_KILLER,
+        /** Random values among a few distinct values (see LOW_CARDINALITY), heavily duplicated. */
+        FEW_DISTINCT
+    }
+
+    /** The number of distinct values of the FEW_DISTINCT distribution. */
+    public static final int LOW_CARDINALITY = 16;
+    /** The number of rounds of the Feistel network, 4 rounds make a strong pseudorandom permutation. */
+    private static final int FEISTEL_ROUNDS = 4;
+    /** Arrays with fewer elements than this are generated sequentially. */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private final long seed;
+
+    /**
+     * @param seed The seed, the same seed always generates the same arrays.
+     */
+    public UniqueInputGenerator(long seed){
+        this.seed = seed;
+    }
+
+    /**
+     * Generates an array of unique values in a random order.
+     * @param size The size of the array.
+     * @param range The values are in [-range, range).
+     * @return The array.
+     * @throws RuntimeException if the range has fewer than size values.
+     */
+    public int[] uniform(int size, int range){
+        long domain = 2L * range;
+        if(range <= 0 || size > domain)
+            throw new RuntimeException("The range [-" + range + ", " + range + ") has fewer than " + size + " values.");
+        // the permutation works on [0, 2^bits), with an even number of bits, the images outside the domain are
+        // permuted again until they fall in it (cycle walking), which is expected to take fewer than 4 rounds
+        int halfBits = Math.max(1, (64 - Long.numberOfLeadingZeros(domain - 1) + 1) / 2);
+        long[] roundKeys = new long[FEISTEL_ROUNDS];
+        for(int round = 0 ; round < FEISTEL_ROUNDS ; round++)
+            roundKeys[round] = mix(seed + 0x9E3779B97F4A7C15L * (round + 1));
+
+        int[] elements = new int[size];
+        range(size).forEach(i -> {
+            long value = i;
+            do {
+                value = permute(value, halfBits, roundKeys);
+            } while(value >= domain);
+            elements[i] = (int) (value - range);
+        });
+        return elements;
+    }
+
+    /**
+     * Generates an array of the given distribution.
+     * @param distribution The distribution of the values.
+     * @param size The size of the array.
+     * @param range The unique values are in [-range, range), the FEW_DISTINCT values are in [0, LOW_CARDINALITY).
+     * @return The array.
+     */
+    public int[] generate(Distribution distribution, int size, int range){
+        if(distribution == Distribution.FEW_DISTINCT) {
+            int[] elements = new int[size];
+            range(size).forEach(i -> elements[i] = (int) Long.remainderUnsigned(mix(seed ^ mix(i)), LOW_CARDINALITY));
+            return elements;
+        }
+        int[] elements = uniform(size, range);
+        if(distribution == Distribution.UNIFORM)
+            return elements;
+        if(size >= PARALLEL_THRESHOLD)
+            Arrays.parallelSort(elements);
+        else
+            Arrays.sort(elements);
+        if(distribution == Distribution.SORTED)
+            return elements;
+
+        int[] sorted = elements.clone();
+        if(distribution == Distribution.REVERSED)
+            range(size).forEach(i -> elements[i] = sorted[size - 1 - i]);
+        else if(distribution == Distribution.MEDIAN_OF_3_KILLER) {
+            int m = size / 4 * 2;
+            range(size).forEach(i -> {
+                int rank;                   // 1 based
+                if(i < m)
+                    rank = i % 2 == 0 ? i + 1 : m + i;
+                else if(i < 2 * m)
+                    rank = 2 * (i - m + 1);
+                else
+                    rank = i + 1;
+                elements[i] = sorted[rank - 1];
+            });
+        } else {
+            // the first (size + 1) / 2 positions take the even ranks, the rest take the odd ranks backwards
+            int ascending = (size + 1) / 2;
+            range(size).forEach(i -> elements[i] = i < ascending ? sorted[2 * i] : sorted[2 * (size - i) - 1]);
+        }
+        return elements;
+    }
+
+    /**
+     * A balanced Feistel network on 2 * halfBits bits, a bijection for any round keys.
+     */
+    private static long permute(long value, int halfBits, long[] roundKeys){
+        long mask = (1L << halfBits) - 1;
+        long left = value >>> halfBits, right = value & mask;
+        for(long roundKey : roundKeys) {
+            long next = left ^ (mix(right ^ roundKey) & mask);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    /**
+     * The finalizer of SplitMix64, a bijective mix of the bits of a long.
+     */
+    private static long mix(long z){
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static IntStream range(int size){
+        IntStream range = IntStream.range(0, size);
+        return size >= PARALLEL_THRESHOLD ? range.parallel() : range;
+    }
+}
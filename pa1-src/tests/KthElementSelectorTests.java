@@ -1,16 +1,33 @@
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
-import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class KthElementSelectorTests {
 
@@ -22,19 +39,8 @@ public class KthElementSelectorTests {
     static Stream<Arguments> generateParameters() {
         Random rand = new Random();
         int arraySize = rand.nextInt(10_000_000) + 1; // Random size between 1 and 10 ^ 7
-        Set<Integer> uniqueNumbers = new HashSet<>();
-        int[] randomArray = new int[arraySize];
-
-        for (int i = 0; i < arraySize; i++) {
-            int randomNumber;
-            do {
-                // Generate a random integer between -10^9 and 10 ^ 9
-                randomNumber = rand.nextInt(2_000_000_000) - 1_000_000_000;
-            } while (uniqueNumbers.contains(randomNumber)); // Continue generating until it's unique
-            uniqueNumbers.add(randomNumber);
-            randomArray[i] = randomNumber;
-        }
-
+        // unique integers between -10^9 and 10 ^ 9
+        int[] randomArray = new UniqueInputGenerator(rand.nextLong()).uniform(arraySize, 1_000_000_000);
         return Stream.of(Arguments.of(randomArray, rand.nextInt(randomArray.length) + 1));
     }
 
@@ -48,6 +54,20 @@ public class KthElementSelectorTests {
         assertEquals(expectedMedian, actualMedian);
     }
 
+    @ParameterizedTest
+    @MethodSource("generateParameters")
+    @DisplayName("Testcase: Kth Element Selection - Randomized Approach with seeded and concurrent random sources")
+    public void test_randomizedSelectionRandomSources(int[] arr, int randomRank){
+        int[] sorted = arr.clone();
+        Arrays.sort(sorted);
+        int expectedMedian = sorted[randomRank - 1];
+        assertEquals(expectedMedian, KthElementSelector.randomizedApproach(arr.clone(), randomRank, 42L));
+        assertEquals(expectedMedian, KthElementSelector.randomizedApproach(arr.clone(), randomRank, new SplittableRandom(7)));
+        // concurrent callers, each drawing from its own thread's generator
+        IntStream.range(0, 4).parallel().forEach(i ->
+                assertEquals(expectedMedian, KthElementSelector.randomizedApproach(arr.clone(), randomRank)));
+    }
+
     @ParameterizedTest
     @MethodSource("generateParameters")
     @DisplayName("Testcase: Kth Element Selection - Deterministic Approach")
@@ -58,6 +78,320 @@ public class KthElementSelectorTests {
         assertEquals(expectedMedian, actualMedian);
     }
 
+    @ParameterizedTest
+    @MethodSource("generateParameters")
+    @DisplayName("Testcase: Kth Element Selection - Introselect Approach")
+    public void test_introselectSelection(int[] arr, int randomRank){
+        int actualMedian = KthElementSelector.introselectApproach(arr,randomRank);
+        Arrays.sort(arr);
+        int expectedMedian = arr[randomRank - 1];
+        assertEquals(expectedMedian, actualMedian);
+    }
+
+    @ParameterizedTest
+    @MethodSource("generateParameters")
+    @DisplayName("Testcase: Kth Element Selection - Floyd-Rivest Approach")
+    public void test_floydRivestSelection(int[] arr, int randomRank){
+        int actualMedian = KthElementSelector.floydRivestApproach(arr,randomRank);
+        Arrays.sort(arr);
+        int expectedMedian = arr[randomRank - 1];
+        assertEquals(expectedMedian, actualMedian);
+    }
+
+    @Test
+    @DisplayName("Testcase: Kth Element Selection - Floyd-Rivest Approach on sorted and median-of-3 killer input")
+    public void test_floydRivestSelectionAtAdversarialInput(){
+        assertSelectionAtAdversarialInput(KthElementSelector::floydRivestApproach);
+    }
+
+    @ParameterizedTest
+    @MethodSource("generateParameters")
+    @DisplayName("Testcase: Kth Element Selection - Parallel Approach")
+    public void test_parallelSelection(int[] arr, int randomRank){
+        int[] sorted = arr.clone();
+        Arrays.sort(sorted);
+        int expectedMedian = sorted[randomRank - 1];
+        assertEquals(expectedMedian, KthElementSelector.parallelApproach(arr.clone(), randomRank, 4));
+        int actualMedian = KthElementSelector.parallelApproach(arr, randomRank);
+        assertEquals(expectedMedian, actualMedian);
+        // the array is partitioned in place, so it is still a permutation of the elements
+        Arrays.sort(arr);
+        assertArrayEquals(sorted, arr);
+    }
+
+    @ParameterizedTest
+    @MethodSource("generateParameters")
+    @DisplayName("Testcase: Kth Element Selection - Multiple ranks (quantiles) in one pass")
+    public void test_multipleRanksSelection(int[] arr, int randomRank){
+        int n = arr.length;
+        int[] ranks = {randomRank, (int) Math.ceil(n * 0.5), (int) Math.ceil(n * 0.9), (int) Math.ceil(n * 0.99),
+                (int) Math.ceil(n * 0.999), 1, n, randomRank};
+        int[] actual = KthElementSelector.selectMany(arr, ranks);
+        Arrays.sort(arr);
+        for(int i = 0 ; i < ranks.length ; i++)
+            assertEquals(arr[ranks[i] - 1], actual[i]);
+        assertThrows(RuntimeException.class, () -> KthElementSelector.selectMany(arr, new int[]{n + 1}));
+    }
+
+    @ParameterizedTest
+    @MethodSource("generateParameters")
+    @DisplayName("Testcase: Kth Element Selection - Streaming Approach, approximate sketch and exact fallback")
+    public void test_streamingSelection(int[] arr, int randomRank){
+        // sketch the 4 quarters of the array separately, as 4 threads would, then merge the sketches
+        QuantileSketch sketch = new QuantileSketch(200, 1);
+        for(int quarter = 0 ; quarter < 4 ; quarter++) {
+            QuantileSketch partSketch = new QuantileSketch(200, quarter + 2);
+            for(int i = quarter * arr.length / 4 ; i < (quarter + 1) * arr.length / 4 ; i++)
+                partSketch.update(arr[i]);
+            sketch.merge(partSketch);
+        }
+        assertEquals(arr.length, sketch.count());
+
+        int exact = KthElementSelector.streamingApproach(() -> Arrays.stream(arr), randomRank, sketch);
+        assertEquals(exact, KthElementSelector.streamingApproach(() -> Arrays.stream(arr), randomRank));
+        int estimate = sketch.kthSmallest(randomRank);
+        Arrays.sort(arr);
+        assertEquals(arr[randomRank - 1], exact);
+        // the rank of the estimate is within (a generous multiple of) the sketch's estimated error
+        int estimateRank = Arrays.binarySearch(arr, estimate) + 1;
+        assertTrue(Math.abs(estimateRank - randomRank) <= 3 * sketch.rankError() + 1);
+    }
+
+    @Test
+    @DisplayName("Testcase: Kth Element Selection - Introselect Approach on sorted and median-of-3 killer input")
+    public void test_introselectSelectionAtAdversarialInput(){
+        assertSelectionAtAdversarialInput(KthElementSelector::introselectApproach);
+    }
+
+    @Test
+    @DisplayName("Testcase: Kth Element Selection - Introselect Approach makes O(n) comparisons on adversarial input")
+    public void test_introselectComparisonsAtAdversarialInput() throws Exception {
+        // COUNT_COMPARISONS is read once, when the class is initialized, so a copy of the selector that counts the
+        // comparisons is loaded by a class loader of its own, while the property is set
+        String property = "kthselector.countComparisons";
+        String previousValue = System.setProperty(property, "true");
+        URL classes = KthElementSelector.class.getProtectionDomain().getCodeSource().getLocation();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{classes}, ClassLoader.getPlatformClassLoader())) {
+            Class<?> selector = Class.forName(KthElementSelector.class.getName(), true, loader);
+            Method introselect = selector.getMethod("introselectApproach", int[].class, int.class);
+            Method comparisons = selector.getDeclaredMethod("comparisons");
+            Method resetComparisons = selector.getDeclaredMethod("resetComparisons");
+            comparisons.setAccessible(true);
+            resetComparisons.setAccessible(true);
+
+            int size = 1 << 20;
+            UniqueInputGenerator generator = new UniqueInputGenerator(13);
+            for(UniqueInputGenerator.Distribution distribution : UniqueInputGenerator.Distribution.values()) {
+                int[] arr = generator.generate(distribution, size, size);
+                for(int rank : new int[]{1, size / 2, size}) {
+                    resetComparisons.invoke(null);
+                    introselect.invoke(null, arr.clone(), rank);
+                    // at most 4n for the partitions, and about 12n for the median of medians on the rest
+                    long count = (long) comparisons.invoke(null);
+                    assertTrue(count > 0 && count <= 16L * size, distribution + ", rank " + rank + ": " + count);
+                }
+            }
+        } finally {
+            if(previousValue == null)
+                System.clearProperty(property);
+            else
+                System.setProperty(property, previousValue);
+        }
+    }
+
+    @Test
+    @DisplayName("Testcase: Kth Element Selection - Deterministic Approach on sorted and median-of-3 killer input")
+    public void test_deterministicSelectionAtAdversarialInput(){
+        assertSelectionAtAdversarialInput(KthElementSelector::deterministicApproach);
+    }
+
+    @Test
+    @Timeout(60)
+    @DisplayName("Testcase: Kth Element Selection - Every approach on low-cardinality input (heavy duplicates)")
+    public void test_selectionAtLowCardinalityInput(){
+        int size = 1_000_000;
+        Random rand = new Random(20);
+        int[] fewValues = new int[size];
+        for(int i = 0 ; i < size ; i++)
+            fewValues[i] = rand.nextInt(4);
+        int[] sameValue = new int[size];
+        Arrays.fill(sameValue, 7);
+
+        List<KthSelectorAnalysis.SelectorAlgorithm> selectors = List.of(KthElementSelector::randomizedApproach,
+                KthElementSelector::deterministicApproach, KthElementSelector::introselectApproach,
+                KthElementSelector::floydRivestApproach, KthElementSelector::parallelApproach,
+                KthElementSelector::naiveApproach);
+        for(int[] arr : new int[][]{fewValues, sameValue}) {
+            int[] sorted = arr.clone();
+            Arrays.sort(sorted);
+            int[] ranks = {1, size / 4, size / 2, size};
+            for(KthSelectorAnalysis.SelectorAlgorithm selector : selectors)
+                for(int rank : ranks)
+                    assertEquals(sorted[rank - 1], selector.apply(arr.clone(), rank));
+            int[] selected = KthElementSelector.selectMany(arr.clone(), ranks);
+            for(int i = 0 ; i < ranks.length ; i++)
+                assertEquals(sorted[ranks[i] - 1], selected[i]);
+        }
+    }
+
+    @Test
+    @DisplayName("Testcase: Kth Element Selection - Arrays of longs and doubles, and argselect by keys")
+    public void test_primitiveAndIndexSelection(){
+        int size = 100_000;
+        SplittableRandom rand = new SplittableRandom(24);
+        double[] specialValues = {Double.NaN, -0.0, 0.0, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY};
+        long[] longs = new long[size];
+        double[] doubles = new double[size];
+        for(int i = 0 ; i < size ; i++) {
+            longs[i] = rand.nextLong();
+            // duplicates, and special values that are ordered by Double.compare(), not by <
+            doubles[i] = rand.nextInt(8) == 0 ? specialValues[rand.nextInt(specialValues.length)] : rand.nextInt(1_000);
+        }
+        long[] sortedLongs = longs.clone();
+        Arrays.sort(sortedLongs);
+        double[] sortedDoubles = doubles.clone();
+        Arrays.sort(sortedDoubles);
+
+        for(int rank : new int[]{1, size / 3, size / 2, size}) {
+            assertEquals(sortedLongs[rank - 1], KthElementSelector.randomizedApproach(longs.clone(), rank));
+            assertEquals(sortedLongs[rank - 1], KthElementSelector.deterministicApproach(longs.clone(), rank));
+            // assertEquals() on doubles compares like Double.equals(), so -0.0 differs from 0.0 and NaN equals NaN
+            assertEquals(sortedDoubles[rank - 1], KthElementSelector.randomizedApproach(doubles.clone(), rank));
+            assertEquals(sortedDoubles[rank - 1], KthElementSelector.deterministicApproach(doubles.clone(), rank));
+
+            int[] indices = IntStream.range(0, size).toArray();
+            int index = KthElementSelector.argSelect(indices, doubles, rank);
+            assertEquals(sortedDoubles[rank - 1], doubles[index]);
+            int[] sortedIndices = indices.clone();
+            Arrays.sort(sortedIndices);
+            assertArrayEquals(IntStream.range(0, size).toArray(), sortedIndices);     // the indices are permuted
+            assertEquals(sortedLongs[rank - 1], longs[KthElementSelector.argSelect(indices, longs, rank)]);
+        }
+    }
+
+    @Test
+    @DisplayName("Testcase: Kth Element Selection - Off-heap buffers and memory-mapped files, selected in place")
+    public void test_offHeapSelection() throws IOException {
+        int size = 1_000_000;
+        int[] arr = new UniqueInputGenerator(25).generate(UniqueInputGenerator.Distribution.FEW_DISTINCT, size, size);
+        int[] sorted = arr.clone();
+        Arrays.sort(sorted);
+        int rank = size / 3;
+
+        // a direct buffer, whose elements before its position are not selected from
+        IntBuffer buffer = ByteBuffer.allocateDirect(4 * (size + 1)).asIntBuffer();
+        buffer.put(Integer.MIN_VALUE).put(arr).position(1);
+        assertEquals(sorted[rank - 1], KthElementSelector.randomizedApproach(buffer, rank));
+        assertEquals(sorted[rank - 1], KthElementSelector.deterministicApproach(buffer, rank));
+        assertEquals(Integer.MIN_VALUE, buffer.get(0));
+
+        File file = File.createTempFile("kth-select", ".bin");
+        file.deleteOnExit();
+        ByteBuffer bytes = ByteBuffer.allocate(4 * size).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.asIntBuffer().put(arr);
+        Files.write(file.toPath(), bytes.array());
+        try (MappedIntFile mapped = MappedIntFile.open(file.getPath())) {
+            assertEquals(size, mapped.size());
+            KthElementSelector.randomizedApproach(mapped, rank);
+            assertEquals(sorted[rank - 1], mapped.get(rank - 1));
+        }
+        // the file was partitioned in place, it is a permutation of the input around its kth element
+        int[] partitioned = new int[size];
+        ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(partitioned);
+        for(int i = 0 ; i < size ; i++)
+            assertTrue(i < rank ? partitioned[i] <= sorted[rank - 1] : partitioned[i] >= sorted[rank - 1]);
+        Arrays.sort(partitioned);
+        assertArrayEquals(sorted, partitioned);
+    }
+
+    @Test
+    @DisplayName("Testcase: Kth Element Selection - Benchmark harness measures an algorithm and reports it as JSON")
+    public void test_benchmarkHarness(){
+        KthSelectorBenchmark.Result result = new KthSelectorBenchmark().measure(1, 1_000, UniqueInputGenerator.Distribution.UNIFORM);
+        assertEquals(10, result.nanosPerOperation.length);
+        assertTrue(result.mean() > 0);
+        String json = result.toJson();
+        assertTrue(json.contains("\"benchmark\": \"Randomized\"") && json.contains("\"size\": 1000"));
+        // a fork reports its samples as a line, that is parsed back into the same result
+        KthSelectorBenchmark.Result parsed = KthSelectorBenchmark.Result.fromSamplesLine(result.method, result.size,
+                result.distribution, result.toSamplesLine());
+        assertArrayEquals(result.nanosPerOperation, parsed.nanosPerOperation);
+    }
+
+    @Test
+    @DisplayName("Testcase: Kth Element Selection - Regression benchmark fits the scaling exponents of adversarial input")
+    public void test_regressionBenchmark(){
+        // Musser's sequence of 8 ranks, the ranks 9 and 10 are appended
+        int[] killer = new UniqueInputGenerator(23).generate(UniqueInputGenerator.Distribution.MEDIAN_OF_3_KILLER, 10, 10);
+        int[] sorted = killer.clone();
+        Arrays.sort(sorted);
+        int[] ranks = {1, 5, 3, 7, 2, 4, 6, 8, 9, 10};
+        for(int i = 0 ; i < ranks.length ; i++)
+            assertEquals(sorted[ranks[i] - 1], killer[i]);
+
+        int[] sizes = {1_000, 10_000, 100_000};
+        assertEquals(1, KthSelectorRegressionBenchmark.scalingExponent(sizes, new double[]{3e3, 3e4, 3e5}), 1e-9);
+        assertEquals(2, KthSelectorRegressionBenchmark.scalingExponent(sizes, new double[]{1e6, 1e8, 1e10}), 1e-9);
+
+        // the time of small arrays is too noisy to be checked here, only the selected elements are
+        KthSelectorRegressionBenchmark benchmark = new KthSelectorRegressionBenchmark();
+        benchmark.sizes = new int[]{1 << 10, 1 << 12};
+        benchmark.maxTimeExponent = Double.POSITIVE_INFINITY;
+        benchmark.maxComparisonsExponent = Double.POSITIVE_INFINITY;
+        assertTrue(benchmark.run(new PrintStream(OutputStream.nullOutputStream())).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Testcase: Kth Element Selection - Input generator is unique, reproducible and follows its distributions")
+    public void test_uniqueInputGenerator(){
+        int size = 1_000_000;
+        int[] uniform = new UniqueInputGenerator(22).uniform(size, size);     // the range has only 2 values per element
+        assertArrayEquals(uniform, new UniqueInputGenerator(22).uniform(size, size));
+        int[] sorted = uniform.clone();
+        Arrays.sort(sorted);
+        for(int i = 1 ; i < size ; i++)
+            assertTrue(sorted[i - 1] < sorted[i]);
+        assertTrue(sorted[0] >= -size && sorted[size - 1] < size);
+
+        UniqueInputGenerator generator = new UniqueInputGenerator(22);
+        assertArrayEquals(sorted, generator.generate(UniqueInputGenerator.Distribution.SORTED, size, size));
+        int[] reversed = generator.generate(UniqueInputGenerator.Distribution.REVERSED, size, size);
+        int[] organPipe = generator.generate(UniqueInputGenerator.Distribution.ORGAN_PIPE, size, size);
+        for(int i = 0 ; i < size ; i++)
+            assertEquals(sorted[size - 1 - i], reversed[i]);
+        int peak = 0;
+        for(int i = 1 ; i < size ; i++)
+            if(organPipe[i] > organPipe[peak])
+                peak = i;
+        assertEquals(sorted[size - 1], organPipe[peak]);
+        for(int i = 1 ; i < size ; i++)
+            assertTrue(i <= peak ? organPipe[i - 1] < organPipe[i] : organPipe[i - 1] > organPipe[i]);
+        for(int element : generator.generate(UniqueInputGenerator.Distribution.FEW_DISTINCT, size, size))
+            assertTrue(element >= 0 && element < UniqueInputGenerator.LOW_CARDINALITY);
+    }
+
+    private static void assertSelectionAtAdversarialInput(KthSelectorAnalysis.SelectorAlgorithm selector){
+        int size = 1_000_000;
+        int[] sorted = new int[size];
+        for(int i = 0 ; i < size ; i++)
+            sorted[i] = i - size / 2;
+        for(int rank : new int[]{1, size / 2, size})
+            assertEquals(rank - 1 - size / 2, selector.apply(sorted.clone(), rank));
+
+        // organ pipe input, ascending then descending, defeats the median of 3 of the first, middle and last elements
+        int[] organPipe = new int[size];
+        for(int i = 0 ; i < size ; i++)
+            organPipe[i] = i < size / 2 ? 2 * i : 2 * (size - i) - 1;
+        for(int rank : new int[]{1, size / 2, size})
+            assertEquals(rank - 1, selector.apply(organPipe.clone(), rank));
+
+        int[] killer = new UniqueInputGenerator(23).generate(UniqueInputGenerator.Distribution.MEDIAN_OF_3_KILLER, size, size);
+        int[] sortedKiller = killer.clone();
+        Arrays.sort(sortedKiller);
+        for(int rank : new int[]{1, size / 2, size})
+            assertEquals(sortedKiller[rank - 1], selector.apply(killer.clone(), rank));
+    }
+
     @ParameterizedTest
     @MethodSource("generateParameters")
     @DisplayName("Testcase: Kth Element Selection - Naive Approach")
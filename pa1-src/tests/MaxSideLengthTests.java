@@ -4,10 +4,13 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class MaxSideLengthTests {
     private MaxSideLength maxSideLength;
@@ -73,6 +76,239 @@ public class MaxSideLengthTests {
         assertEquals(naiveSolution, optimizedSolution);
     }
 
+    @Test
+    @DisplayName("Testcase Max Side Length: Presorted, in-place and grid strategies give the same output")
+    public void test_strategiesAgree(){
+        for(String inputFile : new String[]{"tests/MaxSideLength_Inputs/10p4.txt", "tests/MaxSideLength_Inputs/sameX.txt"}){
+            long presortedSolution = new MaxSideLength(MaxSideLength.Strategy.PRESORTED).solve(inputFile);
+            long inPlaceSolution = new MaxSideLength(MaxSideLength.Strategy.IN_PLACE).solve(inputFile);
+            long gridSolution = new MaxSideLength(MaxSideLength.Strategy.GRID).solve(inputFile);
+            assertEquals(presortedSolution, inPlaceSolution);
+            assertEquals(presortedSolution, gridSolution);
+        }
+    }
+
+    @Test
+    @DisplayName("Testcase Max Side Length: Grid strategy against divide and conquer at input size = 10^6")
+    public void test_gridStrategyBenchmark(){
+        PointSet points = MaxSideLength.scanInput("tests/MaxSideLength_Inputs/10p6.txt");
+        PointSet pointsCopy = points.copy();
+        long t1 = System.currentTimeMillis();
+        long divideAndConquerSolution = new MaxSideLength(MaxSideLength.Strategy.IN_PLACE).solve(pointsCopy);
+        long t2 = System.currentTimeMillis();
+        long gridSolution = new MaxSideLength(MaxSideLength.Strategy.GRID).solve(points);
+        long t3 = System.currentTimeMillis();
+        assertEquals(divideAndConquerSolution, gridSolution);
+        System.out.println("Divide and Conquer vs Grid Running Time (Input Size = 10^6) = "
+                + (t2 - t1) + " ms vs " + (t3 - t2) + " ms.");
+    }
+
+    @Test
+    @DisplayName("Testcase Max Side Length: Parallel engine gives the same output as the sequential one at input size = 10^6")
+    public void test_parallelEngine(){
+        long sequentialSolution = new MaxSideLength(MaxSideLength.Strategy.IN_PLACE, 1).solve("tests/MaxSideLength_Inputs/10p6.txt");
+        long t1 = System.currentTimeMillis();
+        long parallelSolution = new MaxSideLength(MaxSideLength.Strategy.IN_PLACE, 4).solve("tests/MaxSideLength_Inputs/10p6.txt");
+        long t2 = System.currentTimeMillis();
+        System.out.println("Parallel Algorithm Running Time (Input Size = 10^6, 4 Threads) = " + (t2 - t1) + " ms.");
+        assertEquals(sequentialSolution, parallelSolution);
+    }
+
+    @Test
+    @DisplayName("Testcase Max Side Length: External memory mode gives the same output as the in-memory solver")
+    public void test_externalMemoryMode(){
+        // a budget of 1024 points per slab, so that the 10^4 points are split into 10 sorted runs
+        ExternalMaxSideLength externalMaxSideLength = new ExternalMaxSideLength(1024 * 28);
+        for(String inputFile : new String[]{"tests/MaxSideLength_Inputs/10p4.txt", "tests/MaxSideLength_Inputs/sameX.txt"})
+            assertEquals(maxSideLength.solve(inputFile), externalMaxSideLength.solve(inputFile));
+        assertThrows(RuntimeException.class,
+                () -> externalMaxSideLength.solve("tests/MaxSideLength_Inputs/badInput_duplicates.txt"));
+    }
+
+    @Test
+    @DisplayName("Testcase Max Side Length: External memory mode solves boundary strips larger than a slab")
+    public void test_externalMemoryNarrowBand() throws IOException {
+        // 3000 points on 2 vertical lines, so the boundary strip of every slab is the whole slab
+        File inputFile = File.createTempFile("narrowBand", ".txt");
+        inputFile.deleteOnExit();
+        Random random = new Random(17);
+        try (FileWriter writer = new FileWriter(inputFile)) {
+            writer.write("3000\n");
+            for(int i = 0 ; i < 3000 ; i++)
+                writer.write(i % 2 + " " + (i / 2 * 10 + random.nextInt(10)) + "\n");
+        }
+        assertEquals(maxSideLength.solve(inputFile.getPath()), new ExternalMaxSideLength(1024 * 32).solve(inputFile.getPath()));
+    }
+
+    @Test
+    @DisplayName("Testcase Max Side Length: Batch solving writes one result per input file, in order")
+    public void test_batchSolving() throws IOException {
+        List<String> inputFiles = Arrays.asList("tests/MaxSideLength_Inputs/10p4.txt",
+                "tests/MaxSideLength_Inputs/badInput_small.txt", "tests/MaxSideLength_Inputs/sameX.txt");
+        StringWriter output = new StringWriter();
+        new MaxSideLengthBatch(2, 2).solveAll(inputFiles, output);
+        String[] lines = output.toString().split("\n");
+        assertEquals(3, lines.length);
+        assertEquals(inputFiles.get(0) + "\t" + maxSideLength.solve(inputFiles.get(0)), lines[0]);
+        assertTrue(lines[1].startsWith(inputFiles.get(1) + "\tERROR\t"));
+        assertEquals(inputFiles.get(2) + "\t" + maxSideLength.solve(inputFiles.get(2)), lines[2]);
+    }
+
+    @Test
+    @DisplayName("Testcase Max Side Length: Dynamic index agrees with the static solver after insertions and deletions")
+    public void test_dynamicInsertionsAndDeletions(){
+        PointSet points = MaxSideLength.scanInput("tests/MaxSideLength_Inputs/10p4.txt");
+        DynamicMaxSideLength dynamic = new DynamicMaxSideLength();
+        Random random = new Random(11);
+        boolean[] inserted = new boolean[points.size()];
+        for(int step = 0 ; step < 3 * points.size() ; step++) {
+            int i = random.nextInt(points.size());
+            if(inserted[i])
+                dynamic.remove(points.x(i), points.y(i));
+            else
+                dynamic.insert(points.x(i), points.y(i));
+            inserted[i] = !inserted[i];
+            if(step % 997 == 0 && dynamic.size() >= 2)
+                assertEquals(solveInserted(points, inserted), dynamic.currentMaxSide());
+        }
+        assertEquals(solveInserted(points, inserted), dynamic.currentMaxSide());
+
+        int first = 0;
+        while(!inserted[first])
+            first++;
+        int x = points.x(first), y = points.y(first);
+        assertThrows(RuntimeException.class, () -> dynamic.insert(x, y));
+        dynamic.remove(x, y);
+        assertThrows(RuntimeException.class, () -> dynamic.remove(x, y));
+    }
+
+    @Test
+    @DisplayName("Testcase Max Side Length: Dynamic index agrees with the static solver while the closest pair is moved")
+    public void test_dynamicClosestPairMoves(){
+        PointSet points = MaxSideLength.scanInput("tests/MaxSideLength_Inputs/10p4.txt");
+        DynamicMaxSideLength dynamic = new DynamicMaxSideLength();
+        for(int i = 0 ; i < points.size() ; i++)
+            dynamic.insert(points.x(i), points.y(i));
+        Random random = new Random(13);
+        for(int move = 0 ; move < 200 ; move++) {
+            long[] sides = new AllPointsMaxSideLength().solve(points);
+            int closest = 0;
+            for(int i = 1 ; i < sides.length ; i++)
+                if(sides[i] < sides[closest])
+                    closest = i;
+            assertEquals(sides[closest], dynamic.currentMaxSide());
+
+            // move a point of the closest pair to a random free position
+            dynamic.remove(points.x(closest), points.y(closest));
+            while(true) {
+                int x = random.nextInt(1_000_000), y = random.nextInt(1_000_000);
+                try {
+                    dynamic.insert(x, y);
+                } catch (RuntimeException E){
+                    continue;       // a duplicate
+                }
+                points.set(closest, x, y);
+                break;
+            }
+        }
+        assertEquals(maxSideLength.solve(points.copy()), dynamic.currentMaxSide());
+    }
+
+    @Test
+    @DisplayName("Testcase Max Side Length: Dynamic index doesn't rebuild its grid for a point moving next to another and back")
+    public void test_dynamicNearbyMoves(){
+        PointSet points = MaxSideLength.scanInput("tests/MaxSideLength_Inputs/10p4.txt");
+        DynamicMaxSideLength dynamic = new DynamicMaxSideLength();
+        for(int i = 0 ; i < points.size() ; i++)
+            dynamic.insert(points.x(i), points.y(i));
+        long solution = dynamic.currentMaxSide();
+        int gridBuilds = dynamic.gridBuilds;
+
+        Random random = new Random(17);
+        for(int move = 0 ; move < 2000 ; move++) {
+            int i = random.nextInt(points.size());
+            int x = points.x(i) + 1, y = points.y(i);
+            try {
+                dynamic.insert(x, y);
+            } catch (RuntimeException E){
+                continue;       // a duplicate
+            }
+            assertEquals(1, dynamic.currentMaxSide());
+            dynamic.remove(x, y);
+            assertEquals(solution, dynamic.currentMaxSide());
+        }
+        assertEquals(gridBuilds, dynamic.gridBuilds);
+    }
+
+    private long solveInserted(PointSet points, boolean[] inserted){
+        int count = 0;
+        for(boolean b : inserted)
+            if(b) count++;
+        PointSet subset = new PointSet(count);
+        for(int i = 0, j = 0 ; i < points.size() ; i++)
+            if(inserted[i])
+                subset.set(j++, points.x(i), points.y(i));
+        return maxSideLength.solve(subset);
+    }
+
+    @Test
+    @DisplayName("Testcase Max Side Length: All-points mode gives the Chebyshev distance of each point to its nearest neighbor")
+    public void test_allPointsMode() throws IOException {
+        String inputFile = "tests/MaxSideLength_Inputs/10p4.txt";
+        PointSet points = MaxSideLength.scanInput(inputFile);
+        long[] sides = new AllPointsMaxSideLength().solve(points);
+        long minSide = Long.MAX_VALUE;
+        for(int i = 0 ; i < points.size() ; i++) {
+            long nearest = Long.MAX_VALUE;
+            for(int j = 0 ; j < points.size() ; j++)
+                if(i != j)
+                    nearest = Math.min(nearest, Math.max(Math.abs((long) points.x(i) - points.x(j)),
+                            Math.abs((long) points.y(i) - points.y(j))));
+            assertEquals(nearest, sides[i]);
+            minSide = Math.min(minSide, sides[i]);
+        }
+        assertEquals(maxSideLength.solve(inputFile), minSide);
+
+        File outputFile = File.createTempFile("all-points", ".txt");
+        try {
+            new AllPointsMaxSideLength(2).solve("tests/MaxSideLength_Inputs/sameX.txt", outputFile.getPath());
+            long[] expected = new AllPointsMaxSideLength().solve("tests/MaxSideLength_Inputs/sameX.txt");
+            List<String> lines = Files.readAllLines(outputFile.toPath());
+            assertEquals(expected.length, lines.size());
+            for(int i = 0 ; i < expected.length ; i++)
+                assertEquals(expected[i], Long.parseLong(lines.get(i)));
+        } finally {
+            outputFile.delete();
+        }
+        assertThrows(RuntimeException.class,
+                () -> new AllPointsMaxSideLength().solve("tests/MaxSideLength_Inputs/badInput_duplicates.txt"));
+    }
+
+    @Test
+    @DisplayName("Testcase Max Side Length: Binary input format gives the same output as the text format")
+    public void test_binaryInputFormat() throws IOException {
+        File binaryFile = File.createTempFile("10p4", ".bin");
+        binaryFile.deleteOnExit();
+        PointFileReader.writeBinary("tests/MaxSideLength_Inputs/10p4.txt", binaryFile.getPath());
+        long textSolution = maxSideLength.solve("tests/MaxSideLength_Inputs/10p4.txt");
+        long t1 = System.currentTimeMillis();
+        long binarySolution = maxSideLength.solve(binaryFile.getPath());
+        long t2 = System.currentTimeMillis();
+        System.out.println("Algorithm Running Time (Input Size = 10^4, Binary Format) = " + (t2 - t1) + " ms.");
+        assertEquals(textSolution, binarySolution);
+    }
+
+    @Test
+    @DisplayName("Testcase Max Side Length: Output correctness when the Euclidean closest pair is not the Chebyshev closest pair")
+    public void test_correctnessAtSpecialInput_diagonalPair(){
+        // (0, 0), (5, 0) are the closest in the Euclidean metric, but the squares around (100, 100), (104, 104)
+        // are the ones that limit the side length to 4.
+        long naiveSolution = Utilities.naiveApproach("tests/MaxSideLength_Inputs/diagonalPair.txt");
+        for(MaxSideLength.Strategy strategy : MaxSideLength.Strategy.values())
+            assertEquals(4, new MaxSideLength(strategy).solve("tests/MaxSideLength_Inputs/diagonalPair.txt"));
+        assertEquals(4, naiveSolution);
+    }
+
     @Test
     @DisplayName("Testcase Max Side Length: False Input (1 point only), throws runtime exception.")
     public void test_throwingRuntimeExceptionAtFalseInput_1point(){
@@ -86,6 +322,14 @@ public class MaxSideLengthTests {
         assertThrows(RuntimeException.class,
                 () -> maxSideLength.solve("tests/MaxSideLength_Inputs/badInput_duplicates.txt"));
     }
+
+    @Test
+    @DisplayName("Testcase Max Side Length: False Input (points duplication), every strategy throws runtime exception.")
+    public void test_throwingRuntimeExceptionAtFalseInput_duplicatesAllStrategies(){
+        for(MaxSideLength.Strategy strategy : MaxSideLength.Strategy.values())
+            assertThrows(RuntimeException.class,
+                    () -> new MaxSideLength(strategy).solve("tests/MaxSideLength_Inputs/badInput_duplicates.txt"));
+    }
 }
 
 class Utilities {
@@ -99,12 +343,12 @@ class Utilities {
             for(int[] p2: points){
                 if(p1 == p2)
                     continue;
-                if(computeEuclideanDistance(p1, p2) < shortestDistance){
+                if(computeChebyshevDistance(p1, p2) < shortestDistance){
                     closestPair[0][0] = p1[0];
                     closestPair[0][1] = p1[1];
                     closestPair[1][0] = p2[0];
                     closestPair[1][1] = p2[1];
-                    shortestDistance = computeEuclideanDistance(p1, p2);
+                    shortestDistance = computeChebyshevDistance(p1, p2);
                 }
             }
         }
@@ -175,8 +419,8 @@ class Utilities {
         );
     }
 
-    private static long computeEuclideanDistance(int[] pt1, int[] pt2){
-        return (long) Math.sqrt(Math.pow(pt1[0] - pt2[0], 2) + Math.pow(pt1[1] - pt2[1], 2));
+    private static long computeChebyshevDistance(int[] pt1, int[] pt2){
+        return Math.max(Math.abs((long) pt1[0] - pt2[0]), Math.abs((long) pt1[1] - pt2[1]));
     }
 
 }
\ No newline at end of file